@@ -0,0 +1,74 @@
+package com.app.archive;
+
+import com.app.model.Loan;
+import com.app.model.LoanInstallment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Packs the installments of an archived loan into one deflated byte array: per installment its ID, amount,
+ * paid amount, due date and payment date as epoch days, instead of one row each.
+ */
+public final class InstallmentCodec {
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private InstallmentCodec() {
+    }
+
+    public static byte[] encode(List<LoanInstallment> installments) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(installments.size());
+            for (LoanInstallment installment : installments) {
+                out.writeLong(installment.getId());
+                out.writeDouble(installment.getAmount());
+                out.writeDouble(installment.getPaidAmount());
+                out.writeInt(epochDay(installment.getDueDate()));
+                out.writeInt(epochDay(installment.getPaymentDate()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<LoanInstallment> decode(byte[] data, Loan loan) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int count = in.readInt();
+            List<LoanInstallment> installments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                LoanInstallment installment = new LoanInstallment();
+                installment.setId(in.readLong());
+                installment.setAmount(in.readDouble());
+                installment.setPaidAmount(in.readDouble());
+                installment.setDueDate(date(in.readInt()));
+                installment.setPaymentDate(date(in.readInt()));
+                installment.setPaid(true);
+                installment.setLoan(loan);
+                installments.add(installment);
+            }
+            return installments;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
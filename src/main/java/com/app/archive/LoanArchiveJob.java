@@ -0,0 +1,28 @@
+package com.app.archive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Runs the archival in the background every loansim.archive.interval.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "loansim.archive.enabled", havingValue = "true")
+public class LoanArchiveJob {
+
+    private final LoanArchiveService loanArchiveService;
+
+    @Autowired
+    public LoanArchiveJob(LoanArchiveService loanArchiveService) {
+        this.loanArchiveService = loanArchiveService;
+    }
+
+    @Scheduled(initialDelayString = "${loansim.archive.interval:PT1H}", fixedDelayString = "${loansim.archive.interval:PT1H}")
+    public void archivePaidLoans() {
+        loanArchiveService.archivePaidLoans();
+    }
+}
@@ -0,0 +1,129 @@
+package com.app.archive;
+
+import com.app.model.ArchivedLoan;
+import com.app.model.Loan;
+import com.app.model.LoanInstallment;
+import com.app.repository.ArchivedLoanRepository;
+import com.app.repository.LoanInstallmentRepository;
+import com.app.repository.LoanRepository;
+import com.app.service.ResourceVersions;
+import com.app.sharding.ScatterGatherExecutor;
+import com.app.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves fully paid loans created more than loansim.archive.min-age-days ago, with their installments,
+ * from the hot tables into archived_loan. Every shard is archived in parallel, each in transactions of
+ * loansim.archive.chunk-size loans so the hot tables are never locked for long. The shards are archived on
+ * threads of their own, the shared ScatterGatherExecutor stays free for /statistics.
+ */
+@Service
+public class LoanArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiveService.class);
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository loanInstallmentRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final ResourceVersions resourceVersions;
+    private final ScatterGatherExecutor scatterGatherExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int minAgeDays;
+    private final int chunkSize;
+
+    @Autowired
+    public LoanArchiveService(LoanRepository loanRepository,
+                              LoanInstallmentRepository loanInstallmentRepository,
+                              ArchivedLoanRepository archivedLoanRepository,
+                              ResourceVersions resourceVersions,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${loansim.archive.min-age-days:90}") int minAgeDays,
+                              @Value("${loansim.archive.chunk-size:500}") int chunkSize) {
+        this.loanRepository = loanRepository;
+        this.loanInstallmentRepository = loanInstallmentRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
+        this.resourceVersions = resourceVersions;
+        this.scatterGatherExecutor = new ScatterGatherExecutor(shardRouter, "loan-archive");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAgeDays = minAgeDays;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return The number of loans archived over all shards
+     */
+    public int archivePaidLoans() {
+        LocalDate createdBefore = LocalDate.now().minusDays(minAgeDays);
+        log.info("Archiving paid loans created before {}", createdBefore);
+        // The transactions start inside the scatter-gather workers, after their shard has been selected
+        List<Integer> archived = scatterGatherExecutor.scatterGather(shard -> {
+            int total = 0;
+            Integer count;
+            do {
+                count = transactionTemplate.execute(status -> archiveChunk(createdBefore));
+                total += count;
+            } while (count == chunkSize);
+            return total;
+        });
+        int total = archived.stream().mapToInt(Integer::intValue).sum();
+        log.info("Archived {} paid loan(s)", total);
+        return total;
+    }
+
+    private int archiveChunk(LocalDate createdBefore) {
+        List<Loan> loans = loanRepository.findPaidLoansCreatedBefore(createdBefore, PageRequest.of(0, chunkSize));
+        if (loans.isEmpty()) {
+            return 0;
+        }
+        List<Long> loanIds = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            loanIds.add(loan.getId());
+        }
+        Map<Long, List<LoanInstallment>> installmentsByLoan = new HashMap<>();
+        for (LoanInstallment installment : loanInstallmentRepository.findByLoanIdIn(loanIds)) {
+            installmentsByLoan.computeIfAbsent(installment.getLoan().getId(), id -> new ArrayList<>()).add(installment);
+        }
+
+        List<ArchivedLoan> archivedLoans = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            ArchivedLoan archivedLoan = new ArchivedLoan();
+            archivedLoan.setId(loan.getId());
+            archivedLoan.setCustomerId(loan.getCustomer().getId());
+            archivedLoan.setLoanAmount(loan.getLoanAmount());
+            archivedLoan.setNumberOfInstallments(loan.getNumberOfInstallments());
+            archivedLoan.setCreateDate(loan.getCreateDate());
+            archivedLoan.setScheduleType(loan.getScheduleType());
+            archivedLoan.setArchiveDate(LocalDate.now());
+            archivedLoan.setInstallments(InstallmentCodec.encode(installmentsByLoan.getOrDefault(loan.getId(), new ArrayList<>())));
+            archivedLoans.add(archivedLoan);
+        }
+
+        archivedLoanRepository.saveAll(archivedLoans);
+        loanInstallmentRepository.deleteByLoanIdIn(loanIds);
+        loanRepository.deleteAllByIdInBatch(loanIds);
+        for (Loan loan : loans) {
+            resourceVersions.loanChanged(loan.getId());
+            resourceVersions.customerChanged(loan.getCustomer().getId());
+        }
+        return loans.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatterGatherExecutor.shutdown();
+    }
+}
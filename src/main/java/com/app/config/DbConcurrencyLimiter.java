@@ -0,0 +1,70 @@
+package com.app.config;
+
+import com.app.sharding.ShardContext;
+import com.app.sharding.ShardRouter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of LoanService calls that may hold a DB connection at once, per shard.
+ * With virtual threads there is no longer a thread pool limiting concurrency, so without this
+ * thousands of requests would queue inside Hikari instead. Each shard has its own Hikari pool, so each gets
+ * its own permits, defaulting to the pool size. A call that gets no permit within the timeout is answered
+ * with 503 instead of piling up. Ordered after the shard routing, which selects the shard, and ahead of the
+ * transaction advice so a permit is held before a connection is borrowed.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "loansim.db.concurrency-limit.enabled", havingValue = "true")
+public class DbConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(DbConcurrencyLimiter.class);
+    private final Semaphore[] permits;
+    private final long timeoutNanos;
+
+    public DbConcurrencyLimiter(ShardRouter shardRouter,
+                                @Value("${loansim.db.concurrency-limit.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                                @Value("${loansim.db.concurrency-limit.timeout:1s}") Duration timeout) {
+        this.permits = new Semaphore[shardRouter.getShardCount()];
+        for (int shard = 0; shard < this.permits.length; shard++) {
+            this.permits[shard] = new Semaphore(permits, true);
+        }
+        this.timeoutNanos = timeout.toNanos();
+        log.info("DB concurrency for LoanService is capped at {} permits on each of {} shard(s).", permits, this.permits.length);
+    }
+
+    @Around("execution(public * com.app.service.LoanService.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Calls without a shard key run on the default shard
+        Integer shard = ShardContext.get();
+        Semaphore semaphore = permits[shard == null ? 0 : shard];
+        if (!semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+            log.warn("No DB permit for {} on shard {} within the timeout", joinPoint.getSignature().getName(), shard);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Database is overloaded, retry later.");
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public int availablePermits(int shard) {
+        return permits[shard].availablePermits();
+    }
+}
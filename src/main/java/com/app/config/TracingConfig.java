@@ -0,0 +1,25 @@
+package com.app.config;
+
+import com.app.tracing.RequestTracingFilter;
+import com.app.tracing.SlowRequestRecorder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Traces API requests ahead of every other filter, including Spring Security's.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loansim.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestTracingFilter> requestTracingFilter(SlowRequestRecorder slowRequestRecorder) {
+        FilterRegistrationBean<RequestTracingFilter> registration = new FilterRegistrationBean<>(new RequestTracingFilter(slowRequestRecorder));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.config;
+
+import com.app.controller.LoanController;
+import com.app.ratelimit.AdmissionControlFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Admission control on /api/loans/**, ordered after request tracing and ahead of Spring Security. Its second
+ * stage, AuthenticatedAdmissionFilter, is part of the security filter chain, see SecurityConfig.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loansim.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class WebConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            @Value("${loansim.admission.rate-per-second:50}") double permitsPerSecond,
+            @Value("${loansim.admission.burst:100}") int burst,
+            @Value("${loansim.admission.concurrency.initial:20}") int initialLimit,
+            @Value("${loansim.admission.concurrency.min:2}") int minLimit,
+            @Value("${loansim.admission.concurrency.max:200}") int maxLimit,
+            @Value("${loansim.admission.concurrency.target-latency:200ms}") Duration targetLatency,
+            @Value("${loansim.admission.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        AdmissionControlFilter filter = new AdmissionControlFilter(loanEndpoints(), permitsPerSecond, burst,
+                initialLimit, minLimit, maxLimit, targetLatency, backoffRatio);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/loans/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    // The paths LoanController maps, each gets its own concurrency limit
+    private static Set<String> loanEndpoints() {
+        String base = AnnotatedElementUtils.findMergedAnnotation(LoanController.class, RequestMapping.class).path()[0];
+        Set<String> endpoints = new HashSet<>();
+        for (Method method : LoanController.class.getMethods()) {
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+            if (mapping != null) {
+                for (String path : mapping.path()) {
+                    endpoints.add(base + path);
+                }
+            }
+        }
+        return endpoints;
+    }
+}
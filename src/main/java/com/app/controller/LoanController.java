@@ -3,32 +3,42 @@ package com.app.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import com.app.importer.PaymentFileFormat;
+import com.app.importer.PaymentImportService;
 import com.app.model.Loan;
 import com.app.model.LoanInstallment;
+import com.app.model.LoanQuote;
 import com.app.model.LoanRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.app.service.LoanService;
+import com.app.service.ResourceVersions;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/loans")
 public class LoanController {
 
     private final LoanService loanService;
+    private final ResourceVersions resourceVersions;
+    private final PaymentImportService paymentImportService;
 
     @Autowired
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, ResourceVersions resourceVersions, PaymentImportService paymentImportService) {
         this.loanService = loanService;
+        this.resourceVersions = resourceVersions;
+        this.paymentImportService = paymentImportService;
     }
 
     /**
      * Creates a new loan based on the provided loan request details.
      *
-     * @param loanRequest The loan request details (customerId, amount, interest rate, number of installments)
+     * @param loanRequest The loan request details (customerId, amount, interest rate, number of installments, optional schedule type)
      * @return The created loan
      */
     @Operation(
@@ -42,56 +52,133 @@ public class LoanController {
     @PostMapping("/create")
     public ResponseEntity<Loan> createLoan(
             @RequestBody(
-                    description = "Loan request body containing customerId, amount, interest rate, and number of installments"
-            ) LoanRequest loanRequest) {
+                    description = "Loan request body containing customerId, amount, interest rate, number of installments and an optional schedule type (FLAT, ANNUITY, DECLINING_BALANCE)"
+            )
+            @org.springframework.web.bind.annotation.RequestBody LoanRequest loanRequest) {
 
         Loan createdLoan = loanService.createLoan(
                 loanRequest.getCustomerId(),
                 loanRequest.getAmount(),
                 loanRequest.getInterestRate(),
-                loanRequest.getInstallments()
+                loanRequest.getInstallments(),
+                loanRequest.getScheduleType()
         );
         return ResponseEntity.status(HttpStatus.CREATED).body(createdLoan);
     }
 
+    /**
+     * Simulates a loan without creating it, no credit is reserved and nothing is persisted.
+     *
+     * @param loanRequest The loan request details (customerId, amount, interest rate, number of installments, optional schedule type)
+     * @return The installments and total amount the loan would have
+     */
+    @Operation(
+            summary = "Simulate a loan",
+            description = "Validates a loan request and computes its installments without creating the loan.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Loan simulated successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid loan request")
+            }
+    )
+    @PostMapping("/simulate")
+    public LoanQuote simulateLoan(
+            @RequestBody(
+                    description = "Loan request body containing customerId, amount, interest rate, number of installments and an optional schedule type"
+            )
+            @org.springframework.web.bind.annotation.RequestBody LoanRequest loanRequest) {
+
+        return loanService.simulateLoan(
+                loanRequest.getCustomerId(),
+                loanRequest.getAmount(),
+                loanRequest.getInterestRate(),
+                loanRequest.getInstallments(),
+                loanRequest.getScheduleType()
+        );
+    }
+
     /**
      * Retrieves a list of loans for a specific customer.
      *
      * @param customerId The customer ID
+     * @param includeArchived Whether archived, fully paid loans are listed as well
+     * @param webRequest Used to answer a matching If-None-Match with 304 without querying the loans
      * @return A list of loans for the given customer
      */
     @Operation(
             summary = "List loans for a customer",
-            description = "Retrieve all loans associated with a specific customer.",
+            description = "Retrieve all loans associated with a specific customer, archived loans only when includeArchived is set.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "List of loans retrieved successfully"),
+                    @ApiResponse(responseCode = "304", description = "Loans have not changed since the given ETag"),
                     @ApiResponse(responseCode = "404", description = "No loans found for the customer")
             }
     )
     @GetMapping("/list")
     public List<Loan> listLoans(
-            @RequestParam Long customerId) {
-        return loanService.listLoans(customerId);
+            @RequestParam Long customerId,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(weakETag(resourceVersions.customerETag(customerId) + (includeArchived ? "-a" : "")))) {
+            return null;
+        }
+        return loanService.listLoans(customerId, includeArchived);
+    }
+
+    /**
+     * Retrieves loan counts and amounts aggregated over all shards.
+     *
+     * @return Totals over all shards followed by the figures of each shard
+     */
+    @Operation(
+            summary = "Loan statistics",
+            description = "Retrieve loan counts and amounts, queried on every shard in parallel and merged.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+            }
+    )
+    @GetMapping("/statistics")
+    public Map<String, Object> loanStatistics() {
+        return loanService.loanStatistics();
     }
 
     /**
      * Retrieves a list of installments for a specific loan.
      *
      * @param loanId The loan ID
+     * @param includeArchived Whether the installments of an archived loan are returned as well
+     * @param webRequest Used to answer a matching If-None-Match with 304 without querying the installments, once the
+     *                   customer of the loan is known
      * @return A list of installments for the given loan ID
      */
     @Operation(
             summary = "List installments for a loan",
-            description = "Retrieve all installments for a specific loan.",
+            description = "Retrieve all installments for a specific loan, also for an archived loan when includeArchived is set.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Installments for the loan retrieved successfully"),
+                    @ApiResponse(responseCode = "304", description = "Installments have not changed since the given ETag"),
                     @ApiResponse(responseCode = "404", description = "No installments found for the given loan ID")
             }
     )
     @GetMapping("/installments")
     public List<LoanInstallment> listInstallments(
-            @RequestParam Long loanId) {
-        return loanService.listInstallments(loanId);
+            @RequestParam Long loanId,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            WebRequest webRequest) {
+        Long customerId = resourceVersions.customerOfLoan(loanId);
+        if (customerId != null) {
+            // The installments embed the loan's customer, so the ETag covers the customer's version as well
+            if (webRequest.checkNotModified(weakETag(resourceVersions.installmentsETag(loanId, customerId) + (includeArchived ? "-a" : "")))) {
+                return null;
+            }
+            return loanService.listInstallments(loanId, includeArchived);
+        }
+
+        // The loan's customer is not known yet, the response goes out untagged and the next one is tagged
+        List<LoanInstallment> installments = loanService.listInstallments(loanId, includeArchived);
+        if (!installments.isEmpty() && installments.get(0).getLoan().getCustomer() != null) {
+            resourceVersions.loanOwnedBy(loanId, installments.get(0).getLoan().getCustomer().getId());
+        }
+        return installments;
     }
 
     /**
@@ -118,4 +205,36 @@ public class LoanController {
         String response = loanService.payLoan(loanId, amount);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Applies a settlement file of payments from the import directory. Calling it again after an interruption
+     * resumes where the previous run stopped. The import runs within the request, so the request stays open, and
+     * holds its admission slot of this endpoint, until the whole file is applied; a large file is best imported by
+     * a client with a long read timeout, calling again after a timeout continues the same import.
+     *
+     * @param file   The payment file name inside the import directory
+     * @param format The file layout, CSV (loanId,amount) or FIXED_WIDTH
+     * @return Line counts and the location of the per-line result report
+     */
+    @Operation(
+            summary = "Import a payment file",
+            description = "Applies every payment of a settlement file to its loan and writes a per-line result report. "
+                    + "The response is sent once the whole file is applied.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Payment file imported"),
+                    @ApiResponse(responseCode = "404", description = "Payment file not found"),
+                    @ApiResponse(responseCode = "409", description = "Payment file differs from an earlier import of the same name")
+            }
+    )
+    @PostMapping("/pay/import")
+    public Map<String, Object> importPayments(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "CSV") PaymentFileFormat format) {
+        return paymentImportService.importPayments(file, format);
+    }
+
+    // Tomcat does not compress a response with a strong ETag, since a strong ETag has to differ per encoding
+    private static String weakETag(String version) {
+        return "W/\"" + version + "\"";
+    }
 }
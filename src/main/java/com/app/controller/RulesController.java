@@ -0,0 +1,61 @@
+package com.app.controller;
+
+import com.app.rules.EligibilityEngine;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/rules")
+public class RulesController {
+
+    private final EligibilityEngine eligibilityEngine;
+
+    @Autowired
+    public RulesController(EligibilityEngine eligibilityEngine) {
+        this.eligibilityEngine = eligibilityEngine;
+    }
+
+    /**
+     * Retrieves the evaluation counters of the active eligibility policy.
+     *
+     * @return When the policy was loaded and how often each rule was evaluated and rejected a loan
+     */
+    @Operation(
+            summary = "Eligibility rule statistics",
+            description = "Retrieve per-rule evaluation and rejection counters of the active eligibility policy.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
+            }
+    )
+    @GetMapping
+    public Map<String, Object> statistics() {
+        return eligibilityEngine.getStatistics();
+    }
+
+    /**
+     * Recompiles the eligibility policy from its configured location and activates it.
+     *
+     * @return Statistics of the newly activated policy
+     */
+    @Operation(
+            summary = "Reload eligibility rules",
+            description = "Reload the eligibility policy file. The current policy stays active if the file is invalid.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Policy reloaded successfully"),
+                    @ApiResponse(responseCode = "500", description = "Policy file is invalid")
+            }
+    )
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        eligibilityEngine.reload();
+        return ResponseEntity.ok(eligibilityEngine.getStatistics());
+    }
+}
@@ -1,5 +1,7 @@
 package com.app.controller;
 
+import com.app.ratelimit.AuthenticatedAdmissionFilter;
+import com.app.tracing.AuthenticationTimingFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -10,6 +12,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -31,7 +34,10 @@ public class SecurityConfig {
                 .httpBasic()  // Enable basic authentication for other requests
                 .and()
                 .csrf().disable()  // Disable CSRF for H2 console
-                .headers().frameOptions().sameOrigin();  // Allow frames for H2 console (needed for embedded H2 console)
+                .headers().frameOptions().sameOrigin()  // Allow frames for H2 console (needed for embedded H2 console)
+                .and()
+                .addFilterAfter(new AuthenticationTimingFilter(), BasicAuthenticationFilter.class)  // Time spent authenticating, for request tracing
+                .addFilterAfter(new AuthenticatedAdmissionFilter(), AuthenticationTimingFilter.class);  // Rate limits per verified user, see AdmissionControlFilter
 
         return http.build();
     }
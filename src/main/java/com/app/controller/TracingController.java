@@ -0,0 +1,62 @@
+package com.app.controller;
+
+import com.app.tracing.SlowRequestRecorder;
+import com.app.tracing.SlowRequestTrace;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/slow-requests")
+public class TracingController {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    @Autowired
+    public TracingController(SlowRequestRecorder slowRequestRecorder) {
+        this.slowRequestRecorder = slowRequestRecorder;
+    }
+
+    /**
+     * Retrieves the most recent requests that crossed the slow request threshold.
+     *
+     * @param limit Maximum number of traces to return
+     * @return Phase breakdown and SQL timings of each slow request, most recent first
+     */
+    @Operation(
+            summary = "Recent slow requests",
+            description = "Retrieve the phase breakdown and SQL timings of the most recent requests slower than loansim.tracing.slow-request-threshold.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Slow requests retrieved successfully")
+            }
+    )
+    @GetMapping
+    public List<SlowRequestTrace> recentSlowRequests(@RequestParam(defaultValue = "20") int limit) {
+        List<SlowRequestTrace> traces = slowRequestRecorder.getRecentTraces();
+        return traces.subList(0, Math.max(0, Math.min(limit, traces.size())));
+    }
+
+    /**
+     * Forgets all recorded slow requests.
+     */
+    @Operation(
+            summary = "Clear slow requests",
+            description = "Forget all recorded slow requests.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Slow requests cleared")
+            }
+    )
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        slowRequestRecorder.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.app.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of an import, saved after every applied chunk next to the payment file. It is written to a temporary
+ * file and moved into place so a crash leaves either the previous or the new checkpoint, never a partial one.
+ * It records the size and hash of the file it belongs to, a checkpoint found without them belongs to no file.
+ */
+final class ImportCheckpoint {
+
+    String content;
+
+    long offset;
+    long lineNumber;
+    long reportLength;
+    long succeeded;
+    long failed;
+    boolean completed;
+
+    static ImportCheckpoint load(Path path) throws IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint();
+        if (Files.exists(path)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+            checkpoint.content = properties.getProperty("content", "");
+            checkpoint.offset = Long.parseLong(properties.getProperty("offset"));
+            checkpoint.lineNumber = Long.parseLong(properties.getProperty("lineNumber"));
+            checkpoint.reportLength = Long.parseLong(properties.getProperty("reportLength"));
+            checkpoint.succeeded = Long.parseLong(properties.getProperty("succeeded"));
+            checkpoint.failed = Long.parseLong(properties.getProperty("failed"));
+            checkpoint.completed = Boolean.parseBoolean(properties.getProperty("completed"));
+        }
+        return checkpoint;
+    }
+
+    void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("content", content);
+        properties.setProperty("offset", String.valueOf(offset));
+        properties.setProperty("lineNumber", String.valueOf(lineNumber));
+        properties.setProperty("reportLength", String.valueOf(reportLength));
+        properties.setProperty("succeeded", String.valueOf(succeeded));
+        properties.setProperty("failed", String.valueOf(failed));
+        properties.setProperty("completed", String.valueOf(completed));
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "Payment import progress");
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
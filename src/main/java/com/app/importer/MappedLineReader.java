@@ -0,0 +1,91 @@
+package com.app.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a file through memory-mapped windows, starting at any byte offset. Only one window is
+ * mapped at a time, so files of any size are read with a constant heap.
+ */
+final class MappedLineReader implements Closeable {
+
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer buffer;
+    private long windowOffset;
+    private int position;
+    private int lineStart;
+    private int lineEnd;
+
+    MappedLineReader(Path path, long offset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        map(offset);
+    }
+
+    /**
+     * Advances to the next line, which is then available in buffer() between lineStart() and lineEnd().
+     */
+    boolean next() throws IOException {
+        if (windowOffset + position >= fileSize) {
+            return false;
+        }
+        int newline = find(position);
+        if (newline < 0 && windowOffset + buffer.limit() < fileSize) {
+            // The line continues past this window, map the next one starting at the line
+            map(windowOffset + position);
+            newline = find(position);
+            if (newline < 0 && buffer.limit() == WINDOW_SIZE) {
+                throw new IOException("Line at offset " + windowOffset + " is longer than " + WINDOW_SIZE + " bytes");
+            }
+        }
+        lineStart = position;
+        lineEnd = newline < 0 ? buffer.limit() : newline;
+        position = newline < 0 ? buffer.limit() : newline + 1;
+        return true;
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    int lineStart() {
+        return lineStart;
+    }
+
+    int lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * @return The byte offset of the line after the current one
+     */
+    long offset() {
+        return windowOffset + position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int find(int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void map(long offset) throws IOException {
+        windowOffset = offset;
+        position = 0;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, fileSize - offset));
+    }
+}
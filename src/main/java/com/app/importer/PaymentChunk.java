@@ -0,0 +1,44 @@
+package com.app.importer;
+
+/**
+ * A reusable batch of parsed payment lines held in primitive arrays, so the heap used by an import
+ * depends on the chunk size only and not on the size of the file.
+ */
+final class PaymentChunk {
+
+    final long[] lineNumbers;
+    final long[] loanIds;
+    final double[] amounts;
+    // Parse error of the line, null if it parsed
+    final String[] errors;
+    int size;
+
+    PaymentChunk(int capacity) {
+        this.lineNumbers = new long[capacity];
+        this.loanIds = new long[capacity];
+        this.amounts = new double[capacity];
+        this.errors = new String[capacity];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isFull() {
+        return size == lineNumbers.length;
+    }
+
+    void add(long lineNumber, long loanId, double amount) {
+        lineNumbers[size] = lineNumber;
+        loanIds[size] = loanId;
+        amounts[size] = amount;
+        errors[size] = null;
+        size++;
+    }
+
+    void addError(long lineNumber, String error) {
+        lineNumbers[size] = lineNumber;
+        errors[size] = error;
+        size++;
+    }
+}
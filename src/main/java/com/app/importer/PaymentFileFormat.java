@@ -0,0 +1,126 @@
+package com.app.importer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layouts of settlement files. Lines are parsed straight from the mapped file bytes without creating strings.
+ */
+public enum PaymentFileFormat {
+
+    /**
+     * loanId,amount per line, e.g. 1,500.00. A first line starting with a letter is taken as header.
+     */
+    CSV {
+        @Override
+        void parse(ByteBuffer buffer, int start, int end, long lineNumber, PaymentChunk chunk) {
+            int comma = start;
+            while (comma < end && buffer.get(comma) != ',') {
+                comma++;
+            }
+            if (comma == end) {
+                chunk.addError(lineNumber, "Expected loanId,amount");
+                return;
+            }
+            add(buffer, start, comma, comma + 1, end, lineNumber, chunk);
+        }
+    },
+
+    /**
+     * Loan ID in columns 1-19 and amount in columns 20-34, both padded with spaces.
+     */
+    FIXED_WIDTH {
+        @Override
+        void parse(ByteBuffer buffer, int start, int end, long lineNumber, PaymentChunk chunk) {
+            if (end - start < LOAN_ID_WIDTH + 1) {
+                chunk.addError(lineNumber, "Line is shorter than the fixed width layout");
+                return;
+            }
+            int amountStart = start + LOAN_ID_WIDTH;
+            add(buffer, start, amountStart, amountStart, Math.min(end, amountStart + AMOUNT_WIDTH), lineNumber, chunk);
+        }
+    };
+
+    private static final int LOAN_ID_WIDTH = 19;
+    private static final int AMOUNT_WIDTH = 15;
+
+    abstract void parse(ByteBuffer buffer, int start, int end, long lineNumber, PaymentChunk chunk);
+
+    boolean isHeader(ByteBuffer buffer, int start, int end, long lineNumber) {
+        return this == CSV && lineNumber == 1 && start < end && Character.isLetter(buffer.get(start));
+    }
+
+    private static void add(ByteBuffer buffer, int loanIdStart, int loanIdEnd, int amountStart, int amountEnd,
+                            long lineNumber, PaymentChunk chunk) {
+        long loanId = parseLong(buffer, loanIdStart, loanIdEnd);
+        double amount = parseAmount(buffer, amountStart, amountEnd);
+        if (loanId <= 0) {
+            chunk.addError(lineNumber, "Invalid loan ID");
+        } else if (!(amount > 0)) {
+            chunk.addError(lineNumber, "Invalid amount");
+        } else {
+            chunk.add(lineNumber, loanId, amount);
+        }
+    }
+
+    // Returns -1 unless the trimmed range is a non-empty run of digits
+    private static long parseLong(ByteBuffer buffer, int start, int end) {
+        start = skipBlanks(buffer, start, end);
+        end = trimBlanks(buffer, start, end);
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Parses digits with an optional fraction, returns NaN for anything else
+    private static double parseAmount(ByteBuffer buffer, int start, int end) {
+        start = skipBlanks(buffer, start, end);
+        end = trimBlanks(buffer, start, end);
+        long mantissa = 0;
+        long scale = 1;
+        int digits = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction) {
+                    scale *= 10;
+                }
+            } else {
+                return Double.NaN;
+            }
+        }
+        // Both operands are exact doubles, so the division is correctly rounded
+        return digits == 0 ? Double.NaN : (double) mantissa / scale;
+    }
+
+    private static int skipBlanks(ByteBuffer buffer, int start, int end) {
+        while (start < end && isBlank(buffer.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimBlanks(ByteBuffer buffer, int start, int end) {
+        while (end > start && isBlank(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
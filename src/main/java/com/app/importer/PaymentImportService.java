@@ -0,0 +1,286 @@
+package com.app.importer;
+
+import com.app.model.ImportedPayment;
+import com.app.service.LoanService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Applies a settlement file of payments through the payLoan logic.
+ *
+ * The file is read chunk by chunk through MappedLineReader. Each chunk is grouped by loan ID, the groups are
+ * applied in parallel, each in its own transaction via LoanService.payLoanBatch, and the outcome of every line
+ * is appended to FILE.report. After each chunk FILE.checkpoint records how far the import got, so calling the
+ * import again after a crash continues from there. Lines of the chunk that was in flight are not paid twice,
+ * because payLoanBatch records applied lines in the same transaction as the payments. A loan ID that is rejected
+ * outright, e.g. one that belongs to no shard, fails its lines in the report; any other failure of a group aborts
+ * the import so it can be resumed once the cause is gone.
+ *
+ * An import is identified by the file name together with the size and SHA-256 hash of the file. A file that
+ * reuses the name of an earlier import with different content, e.g. a re-issued settlement file, is rejected
+ * rather than reported as already imported; it needs a new name, or the old checkpoint removed.
+ */
+@Service
+public class PaymentImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentImportService.class);
+    private static final String REPORT_HEADER = "line,loanId,amount,status,message\n";
+    private final LoanService loanService;
+    private final Path directory;
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    @Autowired
+    public PaymentImportService(LoanService loanService,
+                                @Value("${loansim.import.directory:./imports}") String directory,
+                                @Value("${loansim.import.chunk-size:5000}") int chunkSize,
+                                @Value("${loansim.import.threads:4}") int threads) {
+        this.loanService = loanService;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param fileName Name of the payment file inside the import directory
+     * @param format   Layout of the file
+     * @return Line counts of the import and the location of its report
+     */
+    public Map<String, Object> importPayments(String fileName, PaymentFileFormat format) {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new RuntimeException("Payment file not found");
+        }
+        Path reportFile = file.resolveSibling(file.getFileName() + ".report");
+        Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        String name = file.getFileName().toString();
+
+        try {
+            String content = Files.size(file) + ":" + sha256(file);
+            ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointFile);
+            if (checkpoint.content == null) {
+                checkpoint.content = content;
+            } else if (!checkpoint.content.equals(content)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment file " + name
+                        + " differs from the file imported under that name, import it under a new name or remove " + checkpointFile.getFileName());
+            }
+            // Lines applied from a file are recorded under its content, never under a different file of the same name
+            String importId = name + "@" + content;
+
+            if (checkpoint.completed) {
+                log.info("Payment file {} was already imported", importId);
+            } else {
+                log.info("Importing payment file {} from line {}", importId, checkpoint.lineNumber + 1);
+                run(file, format, importId, reportFile, checkpointFile, checkpoint);
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("file", name);
+            summary.put("importId", importId);
+            summary.put("lines", checkpoint.succeeded + checkpoint.failed);
+            summary.put("succeeded", checkpoint.succeeded);
+            summary.put("failed", checkpoint.failed);
+            summary.put("report", reportFile.toString());
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not import payment file " + name, e);
+        }
+    }
+
+    private void run(Path file, PaymentFileFormat format, String importId, Path reportFile, Path checkpointFile,
+                     ImportCheckpoint checkpoint) throws IOException {
+        PaymentChunk chunk = new PaymentChunk(chunkSize);
+        ImportedPayment[] results = new ImportedPayment[chunkSize];
+        StringBuilder report = new StringBuilder();
+
+        try (MappedLineReader reader = new MappedLineReader(file, checkpoint.offset);
+             FileChannel reportChannel = FileChannel.open(reportFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop report lines written after the last checkpoint, their chunk is applied again
+            reportChannel.truncate(checkpoint.reportLength);
+            reportChannel.position(checkpoint.reportLength);
+            if (checkpoint.reportLength == 0) {
+                reportChannel.write(ByteBuffer.wrap(REPORT_HEADER.getBytes(StandardCharsets.UTF_8)));
+            }
+
+            long lineNumber = checkpoint.lineNumber;
+            while (true) {
+                chunk.clear();
+                while (!chunk.isFull() && reader.next()) {
+                    lineNumber++;
+                    int start = reader.lineStart();
+                    int end = reader.lineEnd();
+                    if (isBlank(reader.buffer(), start, end) || format.isHeader(reader.buffer(), start, end, lineNumber)) {
+                        continue;
+                    }
+                    format.parse(reader.buffer(), start, end, lineNumber, chunk);
+                }
+                if (chunk.size == 0) {
+                    break;
+                }
+
+                apply(importId, chunk, results);
+
+                report.setLength(0);
+                for (int i = 0; i < chunk.size; i++) {
+                    appendReportLine(report, chunk, i, results[i], checkpoint);
+                }
+                reportChannel.write(ByteBuffer.wrap(report.toString().getBytes(StandardCharsets.UTF_8)));
+                reportChannel.force(false);
+
+                checkpoint.offset = reader.offset();
+                checkpoint.lineNumber = lineNumber;
+                checkpoint.reportLength = reportChannel.position();
+                checkpoint.save(checkpointFile);
+                log.info("Imported payment file {} up to line {}", importId, lineNumber);
+            }
+
+            checkpoint.offset = reader.offset();
+            checkpoint.lineNumber = lineNumber;
+            checkpoint.reportLength = reportChannel.position();
+            checkpoint.completed = true;
+            checkpoint.save(checkpointFile);
+            log.info("Finished importing payment file {}: {} succeeded, {} failed", importId, checkpoint.succeeded, checkpoint.failed);
+        }
+    }
+
+    // Groups the parsed lines by loan ID and applies every group in parallel, keeping file order within a loan
+    private void apply(String importId, PaymentChunk chunk, ImportedPayment[] results) {
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size; i++) {
+            results[i] = null;
+            if (chunk.errors[i] == null) {
+                groups.computeIfAbsent(chunk.loanIds[i], loanId -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        for (Map.Entry<Long, List<Integer>> group : groups.entrySet()) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                List<Integer> indexes = group.getValue();
+                long[] lineNumbers = new long[indexes.size()];
+                double[] amounts = new double[indexes.size()];
+                for (int i = 0; i < indexes.size(); i++) {
+                    lineNumbers[i] = chunk.lineNumbers[indexes.get(i)];
+                    amounts[i] = chunk.amounts[indexes.get(i)];
+                }
+                List<ImportedPayment> outcomes;
+                try {
+                    outcomes = loanService.payLoanBatch(group.getKey(), importId, lineNumbers, amounts, indexes.size());
+                } catch (ResponseStatusException e) {
+                    if (!e.getStatus().is4xxClientError()) {
+                        throw e;
+                    }
+                    // Retrying cannot help a rejected loan ID, so a resume must not stop at the same lines again
+                    log.warn("Payments of {} to loan ID {} rejected: {}", importId, group.getKey(), e.getReason());
+                    outcomes = rejected(indexes.size(), e.getReason());
+                }
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = outcomes.get(i);
+                }
+            }, executor));
+        }
+        // A failing group aborts the import, it can be resumed from the last checkpoint
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private static List<ImportedPayment> rejected(int count, String message) {
+        List<ImportedPayment> outcomes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ImportedPayment payment = new ImportedPayment();
+            payment.setSucceeded(false);
+            payment.setMessage(message);
+            outcomes.add(payment);
+        }
+        return outcomes;
+    }
+
+    private static void appendReportLine(StringBuilder report, PaymentChunk chunk, int i, ImportedPayment result,
+                                         ImportCheckpoint checkpoint) {
+        report.append(chunk.lineNumbers[i]).append(',');
+        if (chunk.errors[i] != null) {
+            report.append(",,FAILED,");
+            appendQuoted(report, chunk.errors[i]);
+            checkpoint.failed++;
+        } else {
+            report.append(chunk.loanIds[i]).append(',').append(chunk.amounts[i]).append(',');
+            report.append(result.getSucceeded() ? "OK," : "FAILED,");
+            appendQuoted(report, result.getMessage());
+            if (result.getSucceeded()) {
+                checkpoint.succeeded++;
+            } else {
+                checkpoint.failed++;
+            }
+        }
+        report.append('\n');
+    }
+
+    private static void appendQuoted(StringBuilder report, String message) {
+        report.append('"').append(message == null ? "" : message.replace("\"", "\"\"")).append('"');
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,108 @@
+package com.app.model;
+
+import com.app.schedule.ScheduleType;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDate;
+
+/**
+ * A fully paid loan moved out of the loan and loan_installment tables. It keeps its original ID and stores its
+ * installments as one compressed column, see InstallmentCodec.
+ *
+ * An archived loan is only ever inserted, so saving one persists it instead of merging: there is no SELECT per
+ * row, and archiving a loan twice fails on the primary key instead of overwriting the first copy.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "customerId"))
+public class ArchivedLoan implements Persistable<Long> {
+    @Id
+    private Long id;
+    private Long customerId;
+    private Double loanAmount;
+    private Integer numberOfInstallments;
+    private LocalDate createDate;
+    @Enumerated(EnumType.STRING)
+    private ScheduleType scheduleType;
+    private LocalDate archiveDate;
+    @Lob
+    private byte[] installments;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Double getLoanAmount() {
+        return loanAmount;
+    }
+
+    public void setLoanAmount(Double loanAmount) {
+        this.loanAmount = loanAmount;
+    }
+
+    public Integer getNumberOfInstallments() {
+        return numberOfInstallments;
+    }
+
+    public void setNumberOfInstallments(Integer numberOfInstallments) {
+        this.numberOfInstallments = numberOfInstallments;
+    }
+
+    public LocalDate getCreateDate() {
+        return createDate;
+    }
+
+    public void setCreateDate(LocalDate createDate) {
+        this.createDate = createDate;
+    }
+
+    public ScheduleType getScheduleType() {
+        return scheduleType;
+    }
+
+    public void setScheduleType(ScheduleType scheduleType) {
+        this.scheduleType = scheduleType;
+    }
+
+    public LocalDate getArchiveDate() {
+        return archiveDate;
+    }
+
+    public void setArchiveDate(LocalDate archiveDate) {
+        this.archiveDate = archiveDate;
+    }
+
+    public byte[] getInstallments() {
+        return installments;
+    }
+
+    public void setInstallments(byte[] installments) {
+        this.installments = installments;
+    }
+}
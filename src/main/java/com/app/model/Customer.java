@@ -14,6 +14,15 @@ public class Customer {
     private String surname;
     private Double creditLimit;
     private Double usedCreditLimit;
+    private String segment;
+
+    public String getSegment() {
+        return segment;
+    }
+
+    public void setSegment(String segment) {
+        this.segment = segment;
+    }
 
     public Double getUsedCreditLimit() {
         return usedCreditLimit;
@@ -1,6 +1,10 @@
 package com.app.model;
 
+import com.app.schedule.ScheduleType;
+
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -17,6 +21,8 @@ public class Loan {
     private Integer numberOfInstallments;
     private LocalDate createDate;
     private Boolean isPaid;
+    @Enumerated(EnumType.STRING)
+    private ScheduleType scheduleType;
 
     @ManyToOne
     @JoinColumn(name = "customer_id")
@@ -62,6 +68,14 @@ public class Loan {
         this.customer = customer;
     }
 
+    public ScheduleType getScheduleType() {
+        return scheduleType;
+    }
+
+    public void setScheduleType(ScheduleType scheduleType) {
+        this.scheduleType = scheduleType;
+    }
+
     public Boolean getIsPaid() {
         return isPaid;
     }
@@ -0,0 +1,73 @@
+package com.app.model;
+
+import com.app.schedule.ScheduleType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The repayment plan of a loan that has not been created. Quotes are cached and shared between requests,
+ * so they are immutable.
+ */
+public class LoanQuote {
+
+    private final double amount;
+    private final double interestRate;
+    private final int numberOfInstallments;
+    private final ScheduleType scheduleType;
+    private final double totalAmount;
+    private final List<Installment> installments;
+
+    public LoanQuote(double amount, double interestRate, int numberOfInstallments, ScheduleType scheduleType,
+                     double totalAmount, List<Installment> installments) {
+        this.amount = amount;
+        this.interestRate = interestRate;
+        this.numberOfInstallments = numberOfInstallments;
+        this.scheduleType = scheduleType;
+        this.totalAmount = totalAmount;
+        this.installments = List.copyOf(installments);
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public int getNumberOfInstallments() {
+        return numberOfInstallments;
+    }
+
+    public ScheduleType getScheduleType() {
+        return scheduleType;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public List<Installment> getInstallments() {
+        return installments;
+    }
+
+    public static class Installment {
+
+        private final double amount;
+        private final LocalDate dueDate;
+
+        public Installment(double amount, LocalDate dueDate) {
+            this.amount = amount;
+            this.dueDate = dueDate;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public LocalDate getDueDate() {
+            return dueDate;
+        }
+    }
+}
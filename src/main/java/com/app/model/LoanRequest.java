@@ -1,11 +1,15 @@
 package com.app.model;
 
+import com.app.schedule.ScheduleType;
+
 public class LoanRequest {
 
     private Long customerId;
     private Double amount;
     private Double interestRate;
     private Integer installments;
+    // Optional, FLAT when omitted
+    private ScheduleType scheduleType;
 
     public Long getCustomerId() {
         return customerId;
@@ -39,6 +43,17 @@ public class LoanRequest {
         this.installments = installments;
     }
 
+    public ScheduleType getScheduleType() {
+        return scheduleType;
+    }
+
+    public void setScheduleType(ScheduleType scheduleType) {
+        this.scheduleType = scheduleType;
+    }
+
+    public LoanRequest() {
+    }
+
     public LoanRequest(Long customerId, Double amount, Double interestRate, Integer installments) {
         this.customerId = customerId;
         this.amount = amount;
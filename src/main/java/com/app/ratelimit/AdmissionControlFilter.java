@@ -0,0 +1,210 @@
+package com.app.ratelimit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for LoanController in two stages. This filter runs ahead of Spring Security so that a shed
+ * request never pays for the BCrypt check: a request needs a slot from the adaptive concurrency limiter of its
+ * endpoint, otherwise it is rejected with 503. Once Spring Security has authenticated the request,
+ * AuthenticatedAdmissionFilter runs the second stage: the request needs a token from the bucket of its endpoint
+ * and client, otherwise it is rejected with 429. Both carry a Retry-After header. A 503 or a failed login never
+ * uses up a client's quota, so nobody can drain the bucket of a user whose password they do not know.
+ *
+ * The client is the authenticated user together with the customerId or loanId request parameter or, for JSON
+ * bodies, the customerId field of the body. The body is read once, only when it is small, and handed on to the
+ * controller from memory.
+ *
+ * The latency sample of the limiter covers the work after authentication only, the password check costs the same
+ * whatever the load on the database. Requests that end with a 4xx status, including the ones that fail to
+ * authenticate, give their slot back without a sample.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+    // The admission of a request, picked up by AuthenticatedAdmissionFilter
+    static final String ADMISSION_ATTRIBUTE = AdmissionControlFilter.class.getName() + ".admission";
+    // Loan requests are a handful of fields, larger bodies are not parsed for a client key
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final JsonFactory JSON = new JsonFactory();
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new HashMap<>();
+
+    /**
+     * @param endpoints The request paths to admit, requests to any other path pass through so that
+     *                  unknown paths cannot create limiter state
+     */
+    public AdmissionControlFilter(Set<String> endpoints,
+                                  double permitsPerSecond,
+                                  int burst,
+                                  int initialLimit,
+                                  int minLimit,
+                                  int maxLimit,
+                                  Duration targetLatency,
+                                  double backoffRatio) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        // Idle clients are forgotten so the number of buckets stays bounded
+        this.buckets = Caffeine.newBuilder().maximumSize(100_000).expireAfterAccess(10, TimeUnit.MINUTES).build();
+        for (String endpoint : endpoints) {
+            limiters.put(endpoint, new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatency.toNanos(), backoffRatio));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String endpoint = request.getRequestURI().substring(request.getContextPath().length());
+        // Spring MVC also maps a path with a trailing slash to the endpoint
+        if (endpoint.length() > 1 && endpoint.endsWith("/")) {
+            endpoint = endpoint.substring(0, endpoint.length() - 1);
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpoint);
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!limiter.tryAcquire()) {
+            log.warn("Concurrency limit of {} reached on {}, shedding request", limiter.getLimit(), endpoint);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        Admission admission = new Admission(this, endpoint);
+        request.setAttribute(ADMISSION_ATTRIBUTE, admission);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int status = response.getStatus();
+            if (admission.latencyNanos >= 0 && (status < 400 || status >= 500)) {
+                limiter.release(admission.latencyNanos);
+            } else {
+                limiter.cancel();
+            }
+        }
+    }
+
+    /**
+     * The second stage, run by AuthenticatedAdmissionFilter once the user is verified.
+     */
+    void admitAuthenticated(Admission admission, Authentication authentication, HttpServletRequest request,
+                            HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        HttpServletRequest admitted = request;
+        String subject = subject(request);
+        if (subject == null && isSmallJsonBody(request)) {
+            byte[] body = request.getInputStream().readNBytes(request.getContentLength());
+            admitted = new CachedBodyRequest(request, body);
+            subject = customerIdOf(body);
+        }
+        String client = "user:" + authentication.getName() + (subject == null ? "" : '/' + subject);
+
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(admission.endpoint + ':' + client, key -> new TokenBucket(permitsPerSecond, burst)).tryAcquire(now);
+        if (waitNanos > 0) {
+            log.warn("Rate limit exceeded on {} for {}", admission.endpoint, client);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(admitted, response);
+        } finally {
+            admission.latencyNanos = System.nanoTime() - now;
+        }
+    }
+
+    /**
+     * @return The current concurrency limit of the endpoint
+     */
+    public int getLimit(String endpoint) {
+        return limiters.get(endpoint).getLimit();
+    }
+
+    private static String subject(HttpServletRequest request) {
+        String customerId = request.getParameter("customerId");
+        if (customerId != null) {
+            return "customer:" + customerId;
+        }
+        String loanId = request.getParameter("loanId");
+        return loanId != null ? "loan:" + loanId : null;
+    }
+
+    private static boolean isSmallJsonBody(HttpServletRequest request) {
+        int length = request.getContentLength();
+        String contentType = request.getContentType();
+        if (length <= 0 || length > MAX_BODY_BYTES || contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    // Finds the top-level customerId field without binding the body, malformed JSON is left to the controller
+    private static String customerIdOf(byte[] body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+                if (token == null) {
+                    break;
+                }
+                if ("customerId".equals(field) && token.isScalarValue()) {
+                    return "customer:" + parser.getText();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            log.debug("Could not read a customerId from the request body", e);
+        }
+        return null;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        response.setStatus(status.value());
+        // Retry-After is in whole seconds, round up so clients never come back too early
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L)));
+    }
+
+    static final class Admission {
+        final AdmissionControlFilter filter;
+        final String endpoint;
+        // Time spent after authentication, or -1 while the request has not got that far
+        volatile long latencyNanos = -1;
+
+        Admission(AdmissionControlFilter filter, String endpoint) {
+            this.filter = filter;
+            this.endpoint = endpoint;
+        }
+    }
+}
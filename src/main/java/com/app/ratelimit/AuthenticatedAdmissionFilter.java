@@ -0,0 +1,33 @@
+package com.app.ratelimit;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Placed right after the authentication filter in the security filter chain, it runs the second stage of the
+ * admission AdmissionControlFilter started, for requests that carry verified credentials. Requests without an
+ * admission, or without credentials, pass through untouched, Spring Security rejects the latter further down.
+ * It must not be a bean, otherwise it would also be registered as a servlet filter.
+ */
+public class AuthenticatedAdmissionFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Object admission = request.getAttribute(AdmissionControlFilter.ADMISSION_ATTRIBUTE);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(admission instanceof AdmissionControlFilter.Admission) || authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AdmissionControlFilter.Admission admitted = (AdmissionControlFilter.Admission) admission;
+        admitted.filter.admitAuthenticated(admitted, authentication, request, response, filterChain);
+    }
+}
@@ -0,0 +1,13 @@
+package com.app.repository;
+
+import com.app.model.ImportedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportedPaymentRepository extends JpaRepository<ImportedPayment, Long> {
+    List<ImportedPayment> findByImportIdAndLoanId(String importId, Long loanId);
+
+}
@@ -3,13 +3,22 @@ package com.app.repository;
 import com.app.model.Loan;
 import com.app.model.LoanInstallment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, Long> {
     List<LoanInstallment> findByLoanId(Long loanId);
     List<LoanInstallment> findByLoan(Loan loan);
+    List<LoanInstallment> findByLoanIdIn(Collection<Long> loanIds);
+
+    @Modifying
+    @Query("delete from LoanInstallment i where i.loan.id in :loanIds")
+    int deleteByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
 
 }
@@ -2,14 +2,25 @@ package com.app.repository;
 
 import com.app.model.Customer;
 import com.app.model.Loan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
     List<Loan> findByCustomerId(Long customerId);
     List<Loan> findByCustomer(Customer customer);
+    long countByIsPaid(Boolean isPaid);
+
+    @Query("select coalesce(sum(l.loanAmount), 0.0) from Loan l")
+    Double sumLoanAmount();
+
+    @Query("select l from Loan l where l.isPaid = true and l.createDate < :createdBefore order by l.id")
+    List<Loan> findPaidLoansCreatedBefore(@Param("createdBefore") LocalDate createdBefore, Pageable pageable);
 
 }
@@ -0,0 +1,59 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+
+/**
+ * Allows only the configured numbers of installments. The allowed tenors are kept in a lookup table
+ * indexed by tenor so checking one neither boxes nor iterates.
+ */
+public class AllowedTenorRule implements EligibilityRule {
+
+    public static final String NAME = "tenor";
+    private final boolean[] allowed;
+    private final String failureMessage;
+
+    public AllowedTenorRule(int[] tenors) {
+        if (tenors.length == 0) {
+            throw new IllegalArgumentException("At least one allowed tenor must be configured.");
+        }
+        int max = 0;
+        for (int tenor : tenors) {
+            if (tenor <= 0) {
+                throw new IllegalArgumentException("Tenors must be positive, found: " + tenor);
+            }
+            max = Math.max(max, tenor);
+        }
+        this.allowed = new boolean[max + 1];
+        for (int tenor : tenors) {
+            allowed[tenor] = true;
+        }
+        this.failureMessage = "Invalid installment number. Allowed values are only " + describe(tenors) + ".";
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean test(Customer customer, double amount, double interestRate, int installments, double totalAmount) {
+        return installments > 0 && installments < allowed.length && allowed[installments];
+    }
+
+    @Override
+    public String getFailureMessage(Customer customer) {
+        return failureMessage;
+    }
+
+    // Renders 6, 9, 12 or 24
+    private static String describe(int[] tenors) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tenors.length; i++) {
+            if (i > 0) {
+                sb.append(i == tenors.length - 1 ? " or " : ", ");
+            }
+            sb.append(tenors[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+
+/**
+ * Rejects loans whose total amount (principal plus interest under the selected schedule) exceeds the customer's unused credit.
+ */
+public class CreditAvailableRule implements EligibilityRule {
+
+    public static final String NAME = "credit";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean test(Customer customer, double amount, double interestRate, int installments, double totalAmount) {
+        double availableCredit = customer.getCreditLimit() - customer.getUsedCreditLimit();
+        return availableCredit >= totalAmount;
+    }
+
+    @Override
+    public String getFailureMessage(Customer customer) {
+        return "Customer does not have enough credit for this loan.";
+    }
+}
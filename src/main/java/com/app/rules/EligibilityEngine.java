@@ -0,0 +1,63 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Holds the active eligibility policy. A reload compiles the policy file into a new policy and swaps it in
+ * with a single volatile write, so concurrent createLoan calls see either the old or the new rules, never a mix.
+ * If the file is invalid the current policy stays active.
+ */
+@Component
+public class EligibilityEngine {
+
+    public static final String DEFAULT_LOCATION = "classpath:eligibility-rules.properties";
+    private static final Logger log = LoggerFactory.getLogger(EligibilityEngine.class);
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private volatile EligibilityPolicy policy;
+
+    @Autowired
+    public EligibilityEngine(ResourceLoader resourceLoader,
+                             @Value("${loansim.rules.location:" + DEFAULT_LOCATION + "}") String location) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        this.policy = load();
+    }
+
+    public void evaluate(Customer customer, double amount, double interestRate, int installments, double totalAmount) {
+        policy.evaluate(customer, amount, interestRate, installments, totalAmount);
+    }
+
+    public void reload() {
+        policy = load();
+        log.info("Reloaded eligibility policy from {}", location);
+    }
+
+    public Map<String, Object> getStatistics() {
+        return policy.getStatistics();
+    }
+
+    private EligibilityPolicy load() {
+        Resource resource = resourceLoader.getResource(location);
+        Properties properties = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read eligibility policy from " + location, e);
+        }
+        return EligibilityPolicy.compile(properties);
+    }
+}
@@ -0,0 +1,122 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An immutable, ordered chain of eligibility rules compiled from a properties source, together with
+ * per-rule counters of how often each rule ran and how often it rejected a loan.
+ *
+ * Recognized keys:
+ * rules.order                   comma separated rule names, evaluated in this order (credit, tenor, rate, exposure)
+ * tenor.allowed                 comma separated allowed numbers of installments
+ * rate.min, rate.max            default interest rate band
+ * rate.segment.NAME.min/max     interest rate band for customers of segment NAME
+ * exposure.max                  maximum total amount of a single loan
+ */
+public class EligibilityPolicy {
+
+    private final EligibilityRule[] rules;
+    private final LongAdder[] evaluated;
+    private final LongAdder[] rejected;
+    private final LocalDateTime loadedAt;
+
+    EligibilityPolicy(EligibilityRule[] rules) {
+        this.rules = rules;
+        this.evaluated = new LongAdder[rules.length];
+        this.rejected = new LongAdder[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            evaluated[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+        }
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    public static EligibilityPolicy compile(Properties properties) {
+        String[] names = required(properties, "rules.order").split(",");
+        EligibilityRule[] rules = new EligibilityRule[names.length];
+        for (int i = 0; i < names.length; i++) {
+            rules[i] = compileRule(names[i].trim(), properties);
+        }
+        return new EligibilityPolicy(rules);
+    }
+
+    /**
+     * Runs the rules in order and throws with the message of the first one that fails.
+     */
+    public void evaluate(Customer customer, double amount, double interestRate, int installments, double totalAmount) {
+        for (int i = 0; i < rules.length; i++) {
+            evaluated[i].increment();
+            if (!rules[i].test(customer, amount, interestRate, installments, totalAmount)) {
+                rejected[i].increment();
+                throw new RuntimeException(rules[i].getFailureMessage(customer));
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> counters = new LinkedHashMap<>();
+        for (int i = 0; i < rules.length; i++) {
+            Map<String, Long> ruleCounters = new LinkedHashMap<>();
+            ruleCounters.put("evaluated", evaluated[i].sum());
+            ruleCounters.put("rejected", rejected[i].sum());
+            counters.put(rules[i].getName(), ruleCounters);
+        }
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("loadedAt", loadedAt.toString());
+        statistics.put("rules", counters);
+        return statistics;
+    }
+
+    private static EligibilityRule compileRule(String name, Properties properties) {
+        switch (name) {
+            case CreditAvailableRule.NAME:
+                return new CreditAvailableRule();
+            case AllowedTenorRule.NAME:
+                String[] values = required(properties, "tenor.allowed").split(",");
+                int[] tenors = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    tenors[i] = Integer.parseInt(values[i].trim());
+                }
+                return new AllowedTenorRule(tenors);
+            case InterestRateBandRule.NAME:
+                return new InterestRateBandRule(
+                        Double.parseDouble(required(properties, "rate.min")),
+                        Double.parseDouble(required(properties, "rate.max")),
+                        segmentBands(properties));
+            case MaxExposureRule.NAME:
+                return new MaxExposureRule(Double.parseDouble(required(properties, "exposure.max")));
+            default:
+                throw new IllegalArgumentException("Unknown eligibility rule: " + name);
+        }
+    }
+
+    // A segment band needs both its min and max, a segment with only one of them is rejected
+    private static Map<String, double[]> segmentBands(Properties properties) {
+        Map<String, double[]> bands = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("rate.segment.") && (key.endsWith(".min") || key.endsWith(".max"))) {
+                String segment = key.substring("rate.segment.".length(), key.length() - ".min".length());
+                bands.put(segment, new double[]{
+                        Double.parseDouble(required(properties, "rate.segment." + segment + ".min")),
+                        Double.parseDouble(required(properties, "rate.segment." + segment + ".max"))
+                });
+            }
+        }
+        return bands;
+    }
+
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing eligibility policy property: " + key);
+        }
+        return value.trim();
+    }
+}
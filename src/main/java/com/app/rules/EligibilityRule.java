@@ -0,0 +1,20 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+
+/**
+ * A single loan eligibility check. Rules are built once when a policy is compiled and must not
+ * allocate while testing, since they run on every createLoan call.
+ */
+public interface EligibilityRule {
+
+    String getName();
+
+    /**
+     * @param totalAmount The total the customer would repay under the selected repayment schedule
+     */
+    boolean test(Customer customer, double amount, double interestRate, int installments, double totalAmount);
+
+    // The customer is passed so that segment-specific rules can report their own limits
+    String getFailureMessage(Customer customer);
+}
@@ -0,0 +1,65 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the interest rate inside a band. Customers with a segment that has its own band are checked
+ * against it, everybody else against the default band.
+ */
+public class InterestRateBandRule implements EligibilityRule {
+
+    public static final String NAME = "rate";
+    private final Band defaultBand;
+    private final Map<String, Band> segmentBands;
+
+    public InterestRateBandRule(double min, double max, Map<String, double[]> segmentBands) {
+        this.defaultBand = new Band(min, max);
+        Map<String, Band> bands = new HashMap<>();
+        segmentBands.forEach((segment, band) -> bands.put(segment, new Band(band[0], band[1])));
+        this.segmentBands = Collections.unmodifiableMap(bands);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean test(Customer customer, double amount, double interestRate, int installments, double totalAmount) {
+        Band band = bandOf(customer);
+        return interestRate >= band.min && interestRate <= band.max;
+    }
+
+    @Override
+    public String getFailureMessage(Customer customer) {
+        return bandOf(customer).failureMessage;
+    }
+
+    private Band bandOf(Customer customer) {
+        String segment = customer.getSegment();
+        if (segment == null) {
+            return defaultBand;
+        }
+        Band band = segmentBands.get(segment);
+        return band != null ? band : defaultBand;
+    }
+
+    private static final class Band {
+        private final double min;
+        private final double max;
+        private final String failureMessage;
+
+        private Band(double min, double max) {
+            if (min > max) {
+                throw new IllegalArgumentException("Interest rate band is empty: " + min + "-" + max);
+            }
+            this.min = min;
+            this.max = max;
+            this.failureMessage = "Invalid interest rate as it must be between " + min + "-" + max + ".";
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.app.rules;
+
+import com.app.model.Customer;
+
+/**
+ * Caps the total amount (principal plus interest under the selected schedule) of a single loan, regardless of the customer's credit limit.
+ */
+public class MaxExposureRule implements EligibilityRule {
+
+    public static final String NAME = "exposure";
+    private final double maxExposure;
+    private final String failureMessage;
+
+    public MaxExposureRule(double maxExposure) {
+        this.maxExposure = maxExposure;
+        this.failureMessage = "Loan exceeds the maximum exposure of " + maxExposure + ".";
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean test(Customer customer, double amount, double interestRate, int installments, double totalAmount) {
+        return totalAmount <= maxExposure;
+    }
+
+    @Override
+    public String getFailureMessage(Customer customer) {
+        return failureMessage;
+    }
+}
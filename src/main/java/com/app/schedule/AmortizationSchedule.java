@@ -0,0 +1,29 @@
+package com.app.schedule;
+
+/**
+ * Computes the installment amounts of a loan.
+ *
+ * The interest rate is the one given to createLoan, i.e. the rate over the whole term: a flat loan repays
+ * amount * (1 + interestRate). Plans that charge interest on the outstanding balance use interestRate / installments
+ * as the rate of each period. Amounts are written into a caller supplied array so that generating a schedule
+ * allocates nothing, and the same array can be reused across what-if calculations.
+ */
+public interface AmortizationSchedule {
+
+    /**
+     * @param principal    The borrowed amount
+     * @param interestRate The interest rate over the whole term
+     * @param installments The number of installments
+     * @param amounts      Receives the installment amounts, must hold at least installments elements
+     * @return The total amount to be repaid
+     */
+    double generate(double principal, double interestRate, int installments, double[] amounts);
+
+    /**
+     * The total amount generate returns for the same arguments, computed without generating the installments.
+     * Eligibility rules check this figure, and it is the figure the customer is charged.
+     *
+     * @param installments The number of installments, must be positive
+     */
+    double totalAmount(double principal, double interestRate, int installments);
+}
@@ -0,0 +1,28 @@
+package com.app.schedule;
+
+/**
+ * French amortization: equal installments whose interest share shrinks as the balance is paid off.
+ */
+public class AnnuitySchedule implements AmortizationSchedule {
+
+    @Override
+    public double generate(double principal, double interestRate, int installments, double[] amounts) {
+        double amount = installment(principal, interestRate, installments);
+        for (int i = 0; i < installments; i++) {
+            amounts[i] = amount;
+        }
+        return amount * installments;
+    }
+
+    @Override
+    public double totalAmount(double principal, double interestRate, int installments) {
+        return installment(principal, interestRate, installments) * installments;
+    }
+
+    private static double installment(double principal, double interestRate, int installments) {
+        double periodRate = interestRate / installments;
+        return periodRate == 0
+                ? principal / installments
+                : principal * periodRate / (1 - Math.pow(1 + periodRate, -installments));
+    }
+}
@@ -0,0 +1,24 @@
+package com.app.schedule;
+
+/**
+ * Equal principal repayments plus interest on the outstanding balance, so installments decline over time.
+ */
+public class DecliningBalanceSchedule implements AmortizationSchedule {
+
+    @Override
+    public double generate(double principal, double interestRate, int installments, double[] amounts) {
+        double periodRate = interestRate / installments;
+        double principalPart = principal / installments;
+        for (int i = 0; i < installments; i++) {
+            double outstanding = principal - principalPart * i;
+            amounts[i] = principalPart + outstanding * periodRate;
+        }
+        return totalAmount(principal, interestRate, installments);
+    }
+
+    @Override
+    public double totalAmount(double principal, double interestRate, int installments) {
+        // The outstanding balances sum up to principal * (installments + 1) / 2
+        return principal + principal * (installments + 1) / 2 * (interestRate / installments);
+    }
+}
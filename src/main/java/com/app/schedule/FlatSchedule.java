@@ -0,0 +1,22 @@
+package com.app.schedule;
+
+/**
+ * Splits principal plus interest into equal installments.
+ */
+public class FlatSchedule implements AmortizationSchedule {
+
+    @Override
+    public double generate(double principal, double interestRate, int installments, double[] amounts) {
+        double total = totalAmount(principal, interestRate, installments);
+        double amount = total / installments;
+        for (int i = 0; i < installments; i++) {
+            amounts[i] = amount;
+        }
+        return total;
+    }
+
+    @Override
+    public double totalAmount(double principal, double interestRate, int installments) {
+        return principal * (1 + interestRate);
+    }
+}
@@ -0,0 +1,20 @@
+package com.app.schedule;
+
+/**
+ * The repayment plans a loan can be created with. The schedules are stateless and shared.
+ */
+public enum ScheduleType {
+    FLAT(new FlatSchedule()),
+    ANNUITY(new AnnuitySchedule()),
+    DECLINING_BALANCE(new DecliningBalanceSchedule());
+
+    private final AmortizationSchedule schedule;
+
+    ScheduleType(AmortizationSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    public AmortizationSchedule getSchedule() {
+        return schedule;
+    }
+}
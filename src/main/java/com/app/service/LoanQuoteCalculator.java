@@ -0,0 +1,81 @@
+package com.app.service;
+
+import com.app.model.LoanQuote;
+import com.app.schedule.ScheduleType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Computes installment amounts and due dates for a loan. The result only depends on the amount, rate, tenor,
+ * schedule type and the month the loan starts in, so quotes are memoized in a bounded cache on that key;
+ * a new month simply produces new keys and the old ones age out.
+ */
+@Component
+public class LoanQuoteCalculator {
+
+    private final Cache<QuoteKey, LoanQuote> cache;
+
+    public LoanQuoteCalculator(@Value("${loansim.quote-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public LoanQuote quote(double amount, double interestRate, int installments, ScheduleType scheduleType) {
+        QuoteKey key = new QuoteKey(amount, interestRate, installments, scheduleType, YearMonth.now());
+        return cache.get(key, this::compute);
+    }
+
+    private LoanQuote compute(QuoteKey key) {
+        double[] amounts = new double[key.installments];
+        double total = key.scheduleType.getSchedule().generate(key.amount, key.interestRate, key.installments, amounts);
+        List<LoanQuote.Installment> installments = new ArrayList<>(key.installments);
+        for (int i = 1; i <= key.installments; i++) {
+            // Installments are due on the 1st of each month following the start month
+            installments.add(new LoanQuote.Installment(amounts[i - 1], key.startMonth.plusMonths(i).atDay(1)));
+        }
+        return new LoanQuote(key.amount, key.interestRate, key.installments, key.scheduleType, total, installments);
+    }
+
+    private static final class QuoteKey {
+        private final double amount;
+        private final double interestRate;
+        private final int installments;
+        private final ScheduleType scheduleType;
+        private final YearMonth startMonth;
+
+        private QuoteKey(double amount, double interestRate, int installments, ScheduleType scheduleType, YearMonth startMonth) {
+            this.amount = amount;
+            this.interestRate = interestRate;
+            this.installments = installments;
+            this.scheduleType = scheduleType;
+            this.startMonth = startMonth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QuoteKey)) {
+                return false;
+            }
+            QuoteKey other = (QuoteKey) o;
+            return Double.compare(amount, other.amount) == 0
+                    && Double.compare(interestRate, other.interestRate) == 0
+                    && installments == other.installments
+                    && scheduleType == other.scheduleType
+                    && startMonth.equals(other.startMonth);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(amount, interestRate, installments, scheduleType, startMonth);
+        }
+    }
+}
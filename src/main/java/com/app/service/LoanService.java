@@ -1,103 +1,192 @@
 package com.app.service;
 
+import com.app.archive.InstallmentCodec;
+import com.app.model.ArchivedLoan;
 import com.app.model.Customer;
+import com.app.model.ImportedPayment;
 import com.app.model.Loan;
 import com.app.model.LoanInstallment;
+import com.app.model.LoanQuote;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import com.app.repository.ArchivedLoanRepository;
 import com.app.repository.CustomerRepository;
+import com.app.repository.ImportedPaymentRepository;
 import com.app.repository.LoanInstallmentRepository;
 import com.app.repository.LoanRepository;
+import com.app.rules.EligibilityEngine;
+import com.app.schedule.ScheduleType;
+import com.app.sharding.ScatterGatherExecutor;
+import com.app.sharding.ShardKey;
+import com.app.tracing.Phase;
+import com.app.tracing.RequestTrace;
+import com.app.tracing.TracedPhase;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class LoanService {
 
     private static final Logger log = LoggerFactory.getLogger(LoanService.class);
+    private static final String INSUFFICIENT_FUNDS = "Insufficient funds to pay any installment.";
     private final CustomerRepository customerRepository;
     private final LoanRepository loanRepository;
     private final LoanInstallmentRepository loanInstallmentRepository;
+    private final EligibilityEngine eligibilityEngine;
+    private final LoanQuoteCalculator loanQuoteCalculator;
+    private final ScatterGatherExecutor scatterGatherExecutor;
+    private final ResourceVersions resourceVersions;
+    private final ImportedPaymentRepository importedPaymentRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
 
     @Autowired
     public LoanService(CustomerRepository customerRepository,
                        LoanRepository loanRepository,
-                       LoanInstallmentRepository loanInstallmentRepository) {
+                       LoanInstallmentRepository loanInstallmentRepository,
+                       EligibilityEngine eligibilityEngine,
+                       LoanQuoteCalculator loanQuoteCalculator,
+                       ScatterGatherExecutor scatterGatherExecutor,
+                       ResourceVersions resourceVersions,
+                       ImportedPaymentRepository importedPaymentRepository,
+                       ArchivedLoanRepository archivedLoanRepository) {
         this.customerRepository = customerRepository;
         this.loanRepository = loanRepository;
         this.loanInstallmentRepository = loanInstallmentRepository;
+        this.eligibilityEngine = eligibilityEngine;
+        this.loanQuoteCalculator = loanQuoteCalculator;
+        this.scatterGatherExecutor = scatterGatherExecutor;
+        this.resourceVersions = resourceVersions;
+        this.importedPaymentRepository = importedPaymentRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
     }
 
     @Transactional
-    public Loan createLoan(Long customerId, Double amount, Double interestRate, Integer installments) {
+    public Loan createLoan(@ShardKey Long customerId, Double amount, Double interestRate, Integer installments) {
+        return createLoan(customerId, amount, interestRate, installments, ScheduleType.FLAT);
+    }
+
+    @Transactional
+    public Loan createLoan(@ShardKey Long customerId, Double amount, Double interestRate, Integer installments, ScheduleType scheduleType) {
         log.info("Attempting to create loan for the given customer with the ID: {}", customerId);
         log.info("Loan has amount: {}, has interest rate: {} and has the number of installments: {} ",amount,interestRate,installments);
+        if (scheduleType == null) {
+            scheduleType = ScheduleType.FLAT;
+        }
 
         // Check if the user exists in our DB
-        Customer customer = customerRepository.findById(customerId).orElseThrow(() -> new RuntimeException("Customer not found"));
+        Customer customer;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.CUSTOMER_LOOKUP)) {
+            customer = customerRepository.findById(customerId).orElseThrow(() -> new RuntimeException("Customer not found"));
+        }
         log.info("Customer {} {} has valid credentials existing in our database, loan creation may resume. ",customer.getName(),customer.getSurname());
 
-        // Check if the user has enough credit to achieve this loan
+        // The credit check itself is one of the eligibility rules below
         Double availableCredit = customer.getCreditLimit() - customer.getUsedCreditLimit();
         log.info("Checking available credit for the given application. Found the available credit as: {} ", availableCredit);
-        Double loanTotalAmount = amount * (1 + interestRate);
-        if (availableCredit < loanTotalAmount) {
-            throw new RuntimeException("Customer does not have enough credit for this loan.");
+
+        // Credit, allowed installments and interest rate band are checked by the configured eligibility policy,
+        // a missing installment number is passed as 0 so that the tenor rule rejects it.
+        // The rules check the total of the selected schedule, the same figure the customer is charged below
+        int tenor = installments == null ? 0 : installments;
+        double loanTotalAmount = totalAmount(scheduleType, amount, interestRate, tenor);
+        try (TracedPhase ignored = RequestTrace.phase(Phase.VALIDATION)) {
+            eligibilityEngine.evaluate(customer, amount, interestRate, tenor, loanTotalAmount);
         }
 
-        // Allow only 6-9-12-24 months of installments.
-        List<Integer> validInstallments = Arrays.asList(6, 9, 12, 24);
-        if (!validInstallments.contains(installments)) {
-            throw new RuntimeException("Invalid installment number. Allowed values are only 6, 9, 12 or 24.");
+        // Compute the repayment plan, its installments add up to the total checked above
+        LoanQuote quote;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.QUOTE)) {
+            quote = loanQuoteCalculator.quote(amount, interestRate, installments, scheduleType);
+        }
+        log.info("Generated {} schedule with total amount: {}", scheduleType, loanTotalAmount);
+
+        Loan savedLoan;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.LOAN_INSERT)) {
+            // Update the amount of used credit limit
+            customer.setUsedCreditLimit(customer.getUsedCreditLimit() + loanTotalAmount);
+            customerRepository.save(customer);
+            // Here is the gimmick, we presume that the given credit limit is fixed and used credit limit is always increased
+            // there might be cases where the used credit shall be deducted from another credit limit variable and the process
+            // might work backwards, so that agent users can define, reduce or increase available limits of the users. This approach
+            // guarantees a bulletproof mathematical induction but isn't close to real-life scenarios.
+
+            Loan loan = new Loan();
+            loan.setCustomer(customer);
+            loan.setLoanAmount(amount);
+            loan.setNumberOfInstallments(installments);
+            loan.setScheduleType(scheduleType);
+            loan.setCreateDate(LocalDate.now());
+            loan.setIsPaid(false);
+            savedLoan = loanRepository.save(loan);
         }
 
-        // only 0.1 to 0.5 interest rate is allowed
-        if (interestRate < 0.1 || interestRate > 0.5) {
-            throw new RuntimeException("Invalid interest rate as it must be between 0.1-0.5.");
+        try (TracedPhase ignored = RequestTrace.phase(Phase.INSTALLMENT_BATCH)) {
+            List<LoanInstallment> installmentsList = new ArrayList<>();
+            for (LoanQuote.Installment quoted : quote.getInstallments()) {
+                LoanInstallment installment = new LoanInstallment();
+                installment.setLoan(savedLoan);
+                installment.setAmount(quoted.getAmount());
+                installment.setPaidAmount(0.0);
+                installment.setPaid(false);
+                installment.setDueDate(quoted.getDueDate());
+                installmentsList.add(installment);
+            }
+            loanInstallmentRepository.saveAll(installmentsList);
         }
+        resourceVersions.loanOwnedBy(savedLoan.getId(), customerId);
+        resourceVersions.customerChanged(customerId);
+        return savedLoan;
+    }
 
-        // Update the amount of used credit limit
-        customer.setUsedCreditLimit(customer.getUsedCreditLimit() + loanTotalAmount);
-        customerRepository.save(customer);
-        // Here is the gimmick, we presume that the given credit limit is fixed and used credit limit is always increased
-        // there might be cases where the used credit shall be deducted from another credit limit variable and the process
-        // might work backwards, so that agent users can define, reduce or increase available limits of the users. This approach
-        // guarantees a bulletproof mathematical induction but isn't close to real-life scenarios.
+    /**
+     * Runs the same validation and installment computation as createLoan without reserving credit or writing anything.
+     */
+    public LoanQuote simulateLoan(@ShardKey Long customerId, Double amount, Double interestRate, Integer installments, ScheduleType scheduleType) {
+        log.info("Simulating loan for customer with ID: {}, amount: {}, interest rate: {}, installments: {}",
+                customerId, amount, interestRate, installments);
+        if (scheduleType == null) {
+            scheduleType = ScheduleType.FLAT;
+        }
 
-        Loan loan = new Loan();
-        loan.setCustomer(customer);
-        loan.setLoanAmount(amount);
-        loan.setNumberOfInstallments(installments);
-        loan.setCreateDate(LocalDate.now());
-        loan.setIsPaid(false);
-        Loan savedLoan = loanRepository.save(loan);
-        List<LoanInstallment> installmentsList = new ArrayList<>();
-        for (int i = 1; i <= installments; i++) {
-            LoanInstallment installment = new LoanInstallment();
-            installment.setLoan(savedLoan);
-            installment.setAmount(loanTotalAmount / installments);  // Equal installment amount
-            installment.setPaidAmount(0.0);
-            installment.setPaid(false);
-            LocalDate dueDate = LocalDate.now().plusMonths(i).withDayOfMonth(1);
-            installment.setDueDate(dueDate);
-            installmentsList.add(installment);
-        }
-
-        loanInstallmentRepository.saveAll(installmentsList);
-        return savedLoan;
+        Customer customer;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.CUSTOMER_LOOKUP)) {
+            customer = customerRepository.findById(customerId).orElseThrow(() -> new RuntimeException("Customer not found"));
+        }
+        int tenor = installments == null ? 0 : installments;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.VALIDATION)) {
+            eligibilityEngine.evaluate(customer, amount, interestRate, tenor, totalAmount(scheduleType, amount, interestRate, tenor));
+        }
+
+        try (TracedPhase ignored = RequestTrace.phase(Phase.QUOTE)) {
+            return loanQuoteCalculator.quote(amount, interestRate, installments, scheduleType);
+        }
     }
 
-    public List<Loan> listLoans(Long customerId) {
+    public List<Loan> listLoans(@ShardKey Long customerId) {
+        return listLoans(customerId, false);
+    }
+
+    public List<Loan> listLoans(@ShardKey Long customerId, boolean includeArchived) {
         log.info("Listing loans for customer with ID: {}", customerId);
         Customer customer = customerRepository.findById(customerId).orElseThrow(() -> new RuntimeException("Customer not found"));
         log.info("Found customer: {} {}", customer.getName(), customer.getSurname());
         List<Loan> loans = loanRepository.findByCustomer(customer);
+        if (includeArchived) {
+            // Archived loans are only read when the client asks for them
+            loans = new ArrayList<>(loans);
+            for (ArchivedLoan archivedLoan : archivedLoanRepository.findByCustomerId(customerId)) {
+                loans.add(restoreLoan(archivedLoan, customer));
+            }
+        }
         if (loans.isEmpty()) {
             log.info("No loans found for customer: {}", customerId);
         } else {
@@ -106,10 +195,51 @@ public class LoanService {
         return loans;
     }
 
-    public List<LoanInstallment> listInstallments(Long loanId) {
+    /**
+     * Aggregates loan counts and amounts across all shards, queried in parallel.
+     */
+    public Map<String, Object> loanStatistics() {
+        log.info("Collecting loan statistics across all shards");
+        List<Map<String, Object>> shards = scatterGatherExecutor.scatterGather(shard -> {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("shard", shard);
+            statistics.put("loans", loanRepository.count());
+            statistics.put("unpaidLoans", loanRepository.countByIsPaid(false));
+            statistics.put("totalLoanAmount", loanRepository.sumLoanAmount());
+            return statistics;
+        });
+
+        long loans = 0;
+        long unpaidLoans = 0;
+        double totalLoanAmount = 0;
+        for (Map<String, Object> shard : shards) {
+            loans += (Long) shard.get("loans");
+            unpaidLoans += (Long) shard.get("unpaidLoans");
+            totalLoanAmount += (Double) shard.get("totalLoanAmount");
+        }
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("loans", loans);
+        statistics.put("unpaidLoans", unpaidLoans);
+        statistics.put("totalLoanAmount", totalLoanAmount);
+        statistics.put("shards", shards);
+        return statistics;
+    }
+
+    public List<LoanInstallment> listInstallments(@ShardKey Long loanId) {
+        return listInstallments(loanId, false);
+    }
+
+    public List<LoanInstallment> listInstallments(@ShardKey Long loanId, boolean includeArchived) {
         log.info("Fetching installments for loan with ID: {}", loanId);
 
-        Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new RuntimeException("Loan not found"));
+        Optional<Loan> hotLoan = loanRepository.findById(loanId);
+        if (hotLoan.isEmpty() && includeArchived) {
+            ArchivedLoan archivedLoan = archivedLoanRepository.findById(loanId).orElseThrow(() -> new RuntimeException("Loan not found"));
+            Customer customer = customerRepository.findById(archivedLoan.getCustomerId()).orElse(null);
+            log.info("Found archived loan with ID: {}, archived on: {}", loanId, archivedLoan.getArchiveDate());
+            return InstallmentCodec.decode(archivedLoan.getInstallments(), restoreLoan(archivedLoan, customer));
+        }
+        Loan loan = hotLoan.orElseThrow(() -> new RuntimeException("Loan not found"));
         log.info("Found loan with ID: {} for customer: {}", loanId, loan.getCustomer().getName());
 
         // Fetch installments associated with the loan
@@ -125,44 +255,49 @@ public class LoanService {
     }
 
 
-    public String payLoan(Long loanId, Double amount) {
+    public String payLoan(@ShardKey Long loanId, Double amount) {
         log.info("Processing payment for loan ID: {} with amount: {}", loanId, amount);
 
-        Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new RuntimeException("Loan not found"));
+        Loan loan;
+        List<LoanInstallment> installments;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.LOAN_LOOKUP)) {
+            loan = loanRepository.findById(loanId).orElseThrow(() -> new RuntimeException("Loan not found"));
+            installments = loanInstallmentRepository.findByLoan(loan);
+        }
         log.info("Found loan with ID: {} for customer: {}", loanId, loan.getCustomer().getName());
 
-        List<LoanInstallment> installments = loanInstallmentRepository.findByLoan(loan);
         List<LoanInstallment> paidInstallments = new ArrayList<>();
         Double totalPaid = 0.0;
         int installmentsPaid = 0;
-
-        for (LoanInstallment installment : installments) {
-            if (installment.getPaid()) {
-                continue;
+        try (TracedPhase ignored = RequestTrace.phase(Phase.PAYMENT_LOOP)) {
+            for (LoanInstallment installment : installments) {
+                if (installment.getPaid()) {
+                    continue;
+                }
+
+                if (amount >= installment.getAmount()) {
+                    penaltyOrRewardCalculationForInstallment(installment);
+                    installment.setPaidAmount(installment.getAmount());
+                    installment.setPaid(true);
+                    installment.setPaymentDate(LocalDate.now());
+                    paidInstallments.add(installment);
+                    amount -= installment.getAmount();
+                    installmentsPaid++;
+
+                    totalPaid += installment.getAmount();
+
+                    log.info("Paid installment with due date: {} and amount: {}", installment.getDueDate(), installment.getAmount());
+                } else {
+                    break;
+                }
             }
 
-            if (amount >= installment.getAmount()) {
-                penaltyOrRewardCalculationForInstallment(installment);
-                installment.setPaidAmount(installment.getAmount());
-                installment.setPaid(true);
-                installment.setPaymentDate(LocalDate.now());
-                paidInstallments.add(installment);
-                amount -= installment.getAmount();
-                installmentsPaid++;
-
-                totalPaid += installment.getAmount();
-
-                log.info("Paid installment with due date: {} and amount: {}", installment.getDueDate(), installment.getAmount());
-            } else {
-                break;
-            }
+            loanInstallmentRepository.saveAll(paidInstallments);
         }
 
-        loanInstallmentRepository.saveAll(paidInstallments);
-
         if (installmentsPaid == 0) {
             log.info("No installments were paid because the provided amount was insufficient.");
-            return "Insufficient funds to pay any installment.";
+            return INSUFFICIENT_FUNDS;
         }
 
         // Check if the loan is fully paid
@@ -172,11 +307,73 @@ public class LoanService {
             loanRepository.save(loan);
             log.info("Loan ID: {} has been fully paid.", loanId);
         }
+        resourceVersions.loanChanged(loanId);
+        resourceVersions.customerChanged(loan.getCustomer().getId());
 
         log.info("Successfully paid {} installments. Total paid: {}", installmentsPaid, totalPaid);
         return "Successfully paid " + installmentsPaid + " installments. Total amount spent: " + totalPaid;
     }
 
+    /**
+     * Applies payments read from a bulk payment file to one loan, in file order and in a single transaction.
+     * Each line is recorded together with its outcome, lines already recorded for this import are not paid
+     * again and their recorded outcome is returned instead, so a resumed import never pays twice.
+     *
+     * @return The outcome of each of the first count lines, in the same order
+     */
+    @Transactional
+    public List<ImportedPayment> payLoanBatch(@ShardKey Long loanId, String importId, long[] lineNumbers, double[] amounts, int count) {
+        log.info("Applying {} imported payment(s) from {} to loan ID: {}", count, importId, loanId);
+        Map<Long, ImportedPayment> recorded = new HashMap<>();
+        for (ImportedPayment payment : importedPaymentRepository.findByImportIdAndLoanId(importId, loanId)) {
+            recorded.put(payment.getLineNumber(), payment);
+        }
+
+        List<ImportedPayment> results = new ArrayList<>(count);
+        List<ImportedPayment> applied = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ImportedPayment payment = recorded.get(lineNumbers[i]);
+            if (payment == null) {
+                payment = new ImportedPayment();
+                payment.setImportId(importId);
+                payment.setLineNumber(lineNumbers[i]);
+                payment.setLoanId(loanId);
+                try {
+                    String message = payLoan(loanId, amounts[i]);
+                    payment.setSucceeded(!INSUFFICIENT_FUNDS.equals(message));
+                    payment.setMessage(message);
+                } catch (RuntimeException e) {
+                    payment.setSucceeded(false);
+                    payment.setMessage(e.getMessage());
+                }
+                applied.add(payment);
+            } else {
+                log.info("Line {} of {} was already applied, skipping it", lineNumbers[i], importId);
+            }
+            results.add(payment);
+        }
+        importedPaymentRepository.saveAll(applied);
+        return results;
+    }
+
+    // A loan without a positive number of installments has no schedule and so no total, the tenor rule rejects it
+    private static double totalAmount(ScheduleType scheduleType, double amount, double interestRate, int installments) {
+        return installments > 0 ? scheduleType.getSchedule().totalAmount(amount, interestRate, installments) : 0;
+    }
+
+    // Rebuilds the paid loan an archived loan was made from, it is not attached to the persistence context
+    private static Loan restoreLoan(ArchivedLoan archivedLoan, Customer customer) {
+        Loan loan = new Loan();
+        loan.setId(archivedLoan.getId());
+        loan.setCustomer(customer);
+        loan.setLoanAmount(archivedLoan.getLoanAmount());
+        loan.setNumberOfInstallments(archivedLoan.getNumberOfInstallments());
+        loan.setCreateDate(archivedLoan.getCreateDate());
+        loan.setScheduleType(archivedLoan.getScheduleType());
+        loan.setIsPaid(true);
+        return loan;
+    }
+
     // Helper method to apply rewards or penalties based on payment date
     private void penaltyOrRewardCalculationForInstallment(LoanInstallment installment) {
         LocalDate currentDate = LocalDate.now();
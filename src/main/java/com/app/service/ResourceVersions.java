@@ -0,0 +1,77 @@
+package com.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the ETags of the read endpoints. A customer's version changes whenever one of its
+ * loans is created or paid, a loan's version whenever one of its installments is paid.
+ * Installments embed their loan and its customer, so their ETag carries both versions; the customer of a loan
+ * never changes and is remembered per loan.
+ *
+ * Versions are drawn from a single clock, so a counter that was evicted and recreated never repeats a value an
+ * earlier ETag carried, and the ETags include the JVM start time so a restart invalidates them all.
+ * Changes are published after the surrounding transaction commits, otherwise a reader could tag data that is
+ * not yet visible with the new version.
+ */
+@Component
+public class ResourceVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong clock = new AtomicLong();
+    private final Cache<Long, Long> customerVersions = Caffeine.newBuilder().maximumSize(100_000).build();
+    private final Cache<Long, Long> loanVersions = Caffeine.newBuilder().maximumSize(100_000).build();
+    private final Cache<Long, Long> loanCustomers = Caffeine.newBuilder().maximumSize(100_000).build();
+
+    public String customerETag(Long customerId) {
+        return "c" + customerId + "-" + epoch + "-" + customerVersions.get(customerId, key -> clock.incrementAndGet());
+    }
+
+    public String loanETag(Long loanId) {
+        return "l" + loanId + "-" + epoch + "-" + loanVersions.get(loanId, key -> clock.incrementAndGet());
+    }
+
+    /**
+     * @return The ETag of the installments of the loan, which changes with the loan and with its customer
+     */
+    public String installmentsETag(Long loanId, Long customerId) {
+        return loanETag(loanId) + "-" + customerVersions.get(customerId, key -> clock.incrementAndGet());
+    }
+
+    /**
+     * @return The customer remembered for the loan, or null if it is not known (yet)
+     */
+    public Long customerOfLoan(Long loanId) {
+        return loanCustomers.getIfPresent(loanId);
+    }
+
+    public void loanOwnedBy(Long loanId, Long customerId) {
+        loanCustomers.put(loanId, customerId);
+    }
+
+    public void customerChanged(Long customerId) {
+        afterCommit(() -> customerVersions.put(customerId, clock.incrementAndGet()));
+    }
+
+    public void loanChanged(Long loanId) {
+        afterCommit(() -> loanVersions.put(loanId, clock.incrementAndGet()));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.app.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * Runs a query on every shard in parallel and collects the per-shard results in shard order. The bean serves
+ * the short read queries of the API, long running work creates its own instance so it never queues them.
+ */
+@Component
+public class ScatterGatherExecutor {
+
+    private final ShardRouter shardRouter;
+    private final ExecutorService executor;
+
+    @Autowired
+    public ScatterGatherExecutor(ShardRouter shardRouter) {
+        this(shardRouter, "scatter-gather");
+    }
+
+    /**
+     * @param threadName The name of the threads, one per shard
+     */
+    public ScatterGatherExecutor(ShardRouter shardRouter, String threadName) {
+        this.shardRouter = shardRouter;
+        this.executor = Executors.newFixedThreadPool(shardRouter.getShardCount(), runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> List<T> scatterGather(IntFunction<T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardRouter.getShardCount());
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                ShardContext.set(target);
+                try {
+                    return query.apply(target);
+                } finally {
+                    ShardContext.set(null);
+                }
+            }, executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
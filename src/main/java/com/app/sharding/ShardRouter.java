@@ -0,0 +1,40 @@
+package com.app.sharding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Maps customer and loan IDs to shards. IDs carry their shard in the bits above SHARD_SHIFT: every shard
+ * starts its customer and loan identity columns at firstId(shard), so a customer, its loans and their installments
+ * all live on the shard the customer was created on and any customer or loan ID can be routed without a lookup.
+ * Installment IDs do not carry a shard, installments are always reached through their loan.
+ * Without sharding there is a single shard 0 and IDs are unchanged.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int SHARD_SHIFT = 40;
+    private final int shardCount;
+
+    public ShardRouter(@Value("${loansim.sharding.enabled:false}") boolean enabled,
+                       @Value("${loansim.sharding.urls:}") List<String> urls) {
+        this.shardCount = enabled ? urls.size() : 1;
+        if (shardCount == 0) {
+            throw new IllegalStateException("Sharding is enabled but loansim.sharding.urls is empty.");
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long id) {
+        return (int) (id >>> SHARD_SHIFT);
+    }
+
+    public static long firstId(int shard) {
+        return ((long) shard << SHARD_SHIFT) + 1;
+    }
+}
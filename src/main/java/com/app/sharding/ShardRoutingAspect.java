@@ -0,0 +1,63 @@
+package com.app.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Routes a LoanService call to the shard of its @ShardKey argument. It has to run before the transaction
+ * advice, because the transaction borrows its connection from the shard that is current when it begins,
+ * and before the DB concurrency limiter, which takes a permit of that shard.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardRoutingAspect {
+
+    private final ShardRouter shardRouter;
+
+    public ShardRoutingAspect(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Around("execution(public * com.app.service.LoanService.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Long key = shardKey(joinPoint);
+        if (key == null) {
+            return joinPoint.proceed();
+        }
+        int shard = shardRouter.shardOf(key);
+        if (shard >= shardRouter.getShardCount()) {
+            // No shard hands out this ID, so nothing can exist under it
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No customer or loan exists with ID " + key);
+        }
+        Integer previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    private static Long shardKey(ProceedingJoinPoint joinPoint) {
+        Annotation[][] annotations = ((MethodSignature) joinPoint.getSignature()).getMethod().getParameterAnnotations();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey && args[i] instanceof Long) {
+                    return (Long) args[i];
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.app.sharding;
+
+import com.app.model.ArchivedLoan;
+import com.app.model.Customer;
+import com.app.model.ImportedPayment;
+import com.app.model.Loan;
+import com.app.model.LoanInstallment;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single datasource with one per entry of loansim.sharding.urls, routed by ShardContext.
+ * Hibernate only manages the schema of the datasource it is given, so every shard's schema is updated here,
+ * its identity columns are moved into the shard's ID range and an empty shard is seeded with shard-data.sql.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loansim.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+    private static final Class<?>[] ENTITIES = {Customer.class, Loan.class, LoanInstallment.class, ImportedPayment.class, ArchivedLoan.class};
+    // The tables with a shard-encoded identity and every table holding IDs it has handed out, archived loans keep theirs
+    private static final Map<String, List<String>> SHARDED_ID_TABLES = Map.of(
+            "customer", List.of("customer"),
+            "loan", List.of("loan", "archived_loan"));
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Value("${loansim.sharding.urls}") List<String> urls,
+                                 @Value("${spring.datasource.username}") String username,
+                                 @Value("${spring.datasource.password}") String password,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setJdbcUrl(urls.get(shard).trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            initializeShard(shard, dataSource);
+            shards.put(shard, dataSource);
+        }
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(shards);
+        routingDataSource.setDefaultTargetDataSource(shards.get(0));
+        routingDataSource.afterPropertiesSet();
+        log.info("Routing DB access across {} shards.", urls.size());
+        return routingDataSource;
+    }
+
+    private static void initializeShard(int shard, DataSource dataSource) {
+        updateSchema(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long firstId = ShardRouter.firstId(shard);
+        for (Map.Entry<String, List<String>> idTables : SHARDED_ID_TABLES.entrySet()) {
+            String table = idTables.getKey();
+            long maxId = 0;
+            for (String idTable : idTables.getValue()) {
+                maxId = Math.max(maxId, jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + idTable, Long.class));
+            }
+            if (maxId < firstId) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + firstId);
+            }
+        }
+
+        Long customers = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+        if (customers == 0) {
+            new ResourceDatabasePopulator(new ClassPathResource("shard-data.sql")).execute(dataSource);
+        }
+        log.info("Shard {} is ready, its IDs start at {}", shard, firstId);
+    }
+
+    private static void updateSchema(DataSource dataSource) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .build();
+        try {
+            MetadataSources sources = new MetadataSources(registry);
+            for (Class<?> entity : ENTITIES) {
+                sources.addAnnotatedClass(entity);
+            }
+            // Same naming strategies Spring Boot configures for the EntityManagerFactory
+            Metadata metadata = sources.getMetadataBuilder()
+                    .applyPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                    .applyImplicitNamingStrategy(new SpringImplicitNamingStrategy())
+                    .build();
+            new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata);
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.app.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Placed right after the authentication filter in the security filter chain, it records the time from the
+ * start of the request up to here, which is dominated by the BCrypt password check, as the authentication phase.
+ * It must not be a bean, otherwise it would also be registered as a servlet filter.
+ */
+public class AuthenticationTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.phaseEnded(Phase.AUTHENTICATION, System.nanoTime() - trace.getStartNanos());
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,39 @@
+package com.app.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted for every traced API request, spanning the request from the first servlet filter to the response.
+ */
+@Name("com.app.HttpRequest")
+@Label("HTTP Request")
+@Category("Loan Simulator")
+@Description("An API request with its SQL totals")
+@StackTrace(false)
+class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Status")
+    int status;
+
+    @Label("SQL Statements")
+    int sqlStatements;
+
+    @Label("SQL Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long sqlTime;
+
+    @Label("Flush Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long flushTime;
+}
@@ -0,0 +1,24 @@
+package com.app.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted for every timed phase of a LoanService operation, whether or not a request trace is active.
+ */
+@Name("com.app.LoanPhase")
+@Label("Loan Phase")
+@Category("Loan Simulator")
+@Description("A timed phase of a loan operation")
+@StackTrace(false)
+class LoanPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Request")
+    String request;
+}
@@ -0,0 +1,26 @@
+package com.app.tracing;
+
+/**
+ * The steps of a loan operation that are timed separately, both as JFR events and in slow request traces.
+ */
+public enum Phase {
+
+    AUTHENTICATION("authentication"),
+    CUSTOMER_LOOKUP("customer lookup"),
+    LOAN_LOOKUP("loan lookup"),
+    VALIDATION("validation"),
+    QUOTE("quote"),
+    LOAN_INSERT("loan insert"),
+    INSTALLMENT_BATCH("installment batch"),
+    PAYMENT_LOOP("payment loop");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
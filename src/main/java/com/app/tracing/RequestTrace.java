@@ -0,0 +1,147 @@
+package com.app.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the phase and SQL timings of the request handled by the current thread.
+ * A trace is only active on request threads, phases timed elsewhere (e.g. bulk import workers) only emit JFR events.
+ */
+public final class RequestTrace {
+
+    // Bounds the memory a trace of a request running thousands of statements can hold
+    static final int MAX_STATEMENTS = 200;
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String uri;
+    private final Instant startTime = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<Timing> phases = new ArrayList<>();
+    private final List<Timing> statements = new ArrayList<>();
+    private long totalNanos = -1;
+    private int statementCount;
+    private long sqlNanos;
+    private long flushNanos;
+    private String preparedSql;
+
+    private RequestTrace(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    /**
+     * Starts tracing the current thread's request, until {@link #end()} is called.
+     */
+    public static RequestTrace begin(String method, String uri) {
+        RequestTrace trace = new RequestTrace(method, uri);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts timing a phase of the current request, or of untraced work when no request is traced.
+     */
+    public static TracedPhase phase(Phase phase) {
+        return new TracedPhase(phase, CURRENT.get());
+    }
+
+    public void end() {
+        totalNanos = System.nanoTime() - startNanos;
+        CURRENT.remove();
+    }
+
+    void phaseEnded(Phase phase, long nanos) {
+        phases.add(new Timing(phase.getLabel(), nanos));
+    }
+
+    void sqlPrepared(String sql) {
+        preparedSql = sql;
+    }
+
+    void sqlExecuted(long nanos) {
+        statementCount++;
+        sqlNanos += nanos;
+        if (statements.size() < MAX_STATEMENTS) {
+            statements.add(new Timing(preparedSql, nanos));
+        }
+    }
+
+    void flushed(long nanos) {
+        flushNanos += nanos;
+    }
+
+    /**
+     * Time spent since {@link #begin(String, String)}, or the whole request once it ended.
+     */
+    public long getTotalNanos() {
+        return totalNanos < 0 ? System.nanoTime() - startNanos : totalNanos;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public List<Timing> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * The first {@value #MAX_STATEMENTS} statements executed, in order.
+     */
+    public List<Timing> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getSqlNanos() {
+        return sqlNanos;
+    }
+
+    public long getFlushNanos() {
+        return flushNanos;
+    }
+
+    /**
+     * A named duration, either a phase or an SQL statement.
+     */
+    public static final class Timing {
+
+        private final String name;
+        private final long nanos;
+
+        Timing(String name, long nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.app.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Traces each request from the outermost filter onwards, so the time spent in Spring Security is included,
+ * emits it as a JFR event and hands it to the {@link SlowRequestRecorder}.
+ */
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    public RequestTracingFilter(SlowRequestRecorder slowRequestRecorder) {
+        this.slowRequestRecorder = slowRequestRecorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        RequestTrace trace = RequestTrace.begin(request.getMethod(), request.getRequestURI());
+        // An exception escaping the chain only becomes a 500 response after this filter returns
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            trace.end();
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = trace.getMethod();
+                event.uri = trace.getUri();
+                event.status = status;
+                event.sqlStatements = trace.getStatementCount();
+                event.sqlTime = trace.getSqlNanos();
+                event.flushTime = trace.getFlushNanos();
+                event.commit();
+            }
+            slowRequestRecorder.record(trace, status);
+        }
+    }
+}
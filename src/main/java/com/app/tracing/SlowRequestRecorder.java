@@ -0,0 +1,68 @@
+package com.app.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent requests that took longer than loansim.tracing.slow-request-threshold,
+ * with their phase breakdown and SQL timings, and logs each of them when it is recorded.
+ */
+@Component
+public class SlowRequestRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowRequestRecorder.class);
+    private final long thresholdNanos;
+    private final int capacity;
+    private final Deque<SlowRequestTrace> traces = new ArrayDeque<>();
+
+    public SlowRequestRecorder(@Value("${loansim.tracing.slow-request-threshold:500ms}") Duration threshold,
+                               @Value("${loansim.tracing.max-slow-requests:100}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records the ended trace if it crossed the threshold.
+     *
+     * @return Whether the request was slow
+     */
+    public boolean record(RequestTrace trace, int status) {
+        if (trace.getTotalNanos() < thresholdNanos) {
+            return false;
+        }
+        SlowRequestTrace slowTrace = new SlowRequestTrace(trace, status);
+        log.warn("Slow request {} {} took {} ms, phases: {}, {} SQL statement(s) took {} ms, flushes took {} ms",
+                slowTrace.getMethod(), slowTrace.getUri(), slowTrace.getTotalMillis(), slowTrace.getPhases(),
+                slowTrace.getSqlStatements(), slowTrace.getSqlMillis(), slowTrace.getFlushMillis());
+        synchronized (traces) {
+            if (traces.size() == capacity) {
+                traces.removeLast();
+            }
+            traces.addFirst(slowTrace);
+        }
+        return true;
+    }
+
+    /**
+     * @return The recorded slow requests, most recent first
+     */
+    public List<SlowRequestTrace> getRecentTraces() {
+        synchronized (traces) {
+            return new ArrayList<>(traces);
+        }
+    }
+
+    public void clear() {
+        synchronized (traces) {
+            traces.clear();
+        }
+    }
+}
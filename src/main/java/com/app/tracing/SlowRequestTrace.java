@@ -0,0 +1,116 @@
+package com.app.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of a request that crossed the slow request threshold, all durations in milliseconds.
+ * Time not covered by any phase (servlet filters, serialization, logging, the commit of the transaction)
+ * is reported as unaccounted.
+ */
+public final class SlowRequestTrace {
+
+    private final String method;
+    private final String uri;
+    private final int status;
+    private final Instant startTime;
+    private final double totalMillis;
+    private final Map<String, Double> phases = new LinkedHashMap<>();
+    private final double unaccountedMillis;
+    private final int sqlStatements;
+    private final double sqlMillis;
+    private final double flushMillis;
+    private final List<StatementTiming> statements = new ArrayList<>();
+
+    SlowRequestTrace(RequestTrace trace, int status) {
+        this.method = trace.getMethod();
+        this.uri = trace.getUri();
+        this.status = status;
+        this.startTime = trace.getStartTime();
+        this.totalMillis = millis(trace.getTotalNanos());
+        // A phase run more than once, e.g. per imported payment, is summed up
+        long phaseNanos = 0;
+        for (RequestTrace.Timing phase : trace.getPhases()) {
+            phases.merge(phase.getName(), millis(phase.getNanos()), Double::sum);
+            phaseNanos += phase.getNanos();
+        }
+        this.unaccountedMillis = millis(trace.getTotalNanos() - phaseNanos);
+        this.sqlStatements = trace.getStatementCount();
+        this.sqlMillis = millis(trace.getSqlNanos());
+        this.flushMillis = millis(trace.getFlushNanos());
+        for (RequestTrace.Timing statement : trace.getStatements()) {
+            statements.add(new StatementTiming(statement.getName(), millis(statement.getNanos())));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public Map<String, Double> getPhases() {
+        return Collections.unmodifiableMap(phases);
+    }
+
+    public double getUnaccountedMillis() {
+        return unaccountedMillis;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public double getSqlMillis() {
+        return sqlMillis;
+    }
+
+    public double getFlushMillis() {
+        return flushMillis;
+    }
+
+    public List<StatementTiming> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public static final class StatementTiming {
+
+        private final String sql;
+        private final double millis;
+
+        StatementTiming(String sql, double millis) {
+            this.sql = sql;
+            this.millis = millis;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public double getMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.app.tracing;
+
+/**
+ * Times one phase from its creation until close, use it in a try-with-resources block.
+ */
+public final class TracedPhase implements AutoCloseable {
+
+    private final Phase phase;
+    private final RequestTrace trace;
+    private final LoanPhaseEvent event = new LoanPhaseEvent();
+    private final long startNanos;
+
+    TracedPhase(Phase phase, RequestTrace trace) {
+        this.phase = phase;
+        this.trace = trace;
+        this.event.begin();
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        long nanos = System.nanoTime() - startNanos;
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.getLabel();
+            event.request = trace == null ? null : trace.getUri();
+            event.commit();
+        }
+        if (trace != null) {
+            trace.phaseEnded(phase, nanos);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.app.tracing;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Records JDBC execution and flush times of a Hibernate session into the current request trace.
+ * Hibernate creates one instance per session, registered through hibernate.session.events.auto.
+ */
+public class TracingSessionEventListener extends BaseSessionEventListener {
+
+    private long executeStart;
+    private long flushStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.flushed(System.nanoTime() - flushStart);
+        }
+    }
+
+    private void executed() {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.sqlExecuted(System.nanoTime() - executeStart);
+        }
+    }
+}
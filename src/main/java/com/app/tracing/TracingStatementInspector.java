@@ -0,0 +1,20 @@
+package com.app.tracing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hands each SQL statement Hibernate is about to prepare to the current request trace, so that
+ * {@link TracingSessionEventListener} can attach it to the execution time it measures next.
+ * Registered through hibernate.session_factory.statement_inspector.
+ */
+public class TracingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.sqlPrepared(sql);
+        }
+        return sql;
+    }
+}
@@ -4,7 +4,8 @@ CREATE TABLE IF NOT EXISTS customer (
     name VARCHAR(255),
     surname VARCHAR(255),
     creditLimit DOUBLE,
-    usedCreditLimit DOUBLE
+    usedCreditLimit DOUBLE,
+    segment VARCHAR(64)
 );
 
 -- Loan table
@@ -14,6 +15,7 @@ CREATE TABLE IF NOT EXISTS loan (
     numberOfInstallments INT,
     customer_id BIGINT,
     paid BOOLEAN,
+    scheduleType VARCHAR(32),
     FOREIGN KEY (customer_id) REFERENCES customer(id)
 );
 
@@ -0,0 +1,7 @@
+-- Sample customers inserted into every empty shard when running with the sharded profile
+INSERT INTO customer (name, surname, credit_limit, used_credit_limit)
+VALUES ('Veli', 'Şahin', 10000.0, 0.0);
+INSERT INTO customer (name, surname, credit_limit, used_credit_limit)
+VALUES ('Beyza', 'Güler', 4000.0, 300.0);
+INSERT INTO customer (name, surname, credit_limit, used_credit_limit)
+VALUES ('Cengiz', 'Erdem', 7500.0, 2500.0);
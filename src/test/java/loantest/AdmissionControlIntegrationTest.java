@@ -0,0 +1,58 @@
+package loantest;
+
+import com.app.MainApplication;
+import com.app.model.Customer;
+import com.app.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(classes = MainApplication.class, properties = {
+        "loansim.admission.enabled=true",
+        "loansim.admission.rate-per-second=0.001",
+        "loansim.admission.burst=2"
+})
+@AutoConfigureMockMvc
+class AdmissionControlIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void testWrongPasswordDoesNotUseUpTheUsersQuota() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Fatih");
+        customer.setSurname("Terim");
+        customer.setCreditLimit(100_000.0);
+        customer.setUsedCreditLimit(0.0);
+        Long customerId = customerRepository.save(customer).getId();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(401, listLoans(customerId, "admin:wrong"));
+        }
+
+        // The whole burst is still there for the real user, and it is enforced
+        assertEquals(200, listLoans(customerId, "admin:admin"));
+        assertEquals(200, listLoans(customerId, "admin:admin"));
+        assertEquals(429, listLoans(customerId, "admin:admin"));
+    }
+
+    private int listLoans(Long customerId, String credentials) throws Exception {
+        return mockMvc.perform(get("/api/loans/list")
+                        .param("customerId", customerId.toString())
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8))))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,185 @@
+package loantest;
+
+import com.app.ratelimit.AdaptiveConcurrencyLimiter;
+import com.app.ratelimit.AdmissionControlFilter;
+import com.app.ratelimit.AuthenticatedAdmissionFilter;
+import com.app.ratelimit.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testTokenBucketAllowsBurstThenSustainedRate() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = SECOND;
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        // Bucket is empty, the next token arrives after 1/10 s
+        assertEquals(SECOND / 10, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void testConcurrencyLimitRejectsWhenFull() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, TARGET, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(TARGET / 2);
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testConcurrencyLimitAdaptsToLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, TARGET, 0.5);
+
+        // Slow responses halve the limit down to the minimum
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(TARGET * 2);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        // Fast responses grow it back additively
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(TARGET / 2);
+        }
+        assertTrue(limiter.getLimit() > 2);
+        assertTrue(limiter.getLimit() <= 10);
+    }
+
+    @Test
+    void testSimulateIsRateLimitedPerCustomer() throws Exception {
+        AdmissionControlFilter filter = filter(1, 10);
+
+        assertEquals(200, simulate(filter, 1L, (request, response) -> {
+            // The body read for the client key is still there for the controller
+            String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+            assertTrue(body.contains("\"customerId\": 1"));
+        }));
+        MockHttpServletResponse limited = new MockHttpServletResponse();
+        filter.doFilter(simulateRequest(1L), limited, authenticated((request, response) -> fail("Customer 1 is over its rate")));
+        assertEquals(429, limited.getStatus());
+        assertNotNull(limited.getHeader(HttpHeaders.RETRY_AFTER));
+
+        // Another customer of the same user has its own bucket
+        assertEquals(200, simulate(filter, 2L, (request, response) -> { }));
+    }
+
+    @Test
+    void testSheddingDoesNotUseUpTheQuota() throws Exception {
+        AdmissionControlFilter filter = filter(2, 1);
+
+        // While the only slot is taken, a second request is shed with 503 before it takes a token
+        assertEquals(200, simulate(filter, 1L, (request, response) ->
+                assertEquals(503, simulate(filter, 1L, (nested, nestedResponse) -> fail("Concurrency limit is 1")))));
+
+        // So the second token of the burst is still there, the third request is over the rate
+        assertEquals(200, simulate(filter, 1L, (request, response) -> { }));
+        assertEquals(429, simulate(filter, 1L, (request, response) -> fail("Customer 1 is over its rate")));
+    }
+
+    @Test
+    void testOnlyWorkAfterAuthenticationIsALatencySample() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(Set.of("/api/loans/simulate"), 1000, 1000,
+                4, 1, 4, Duration.ofMillis(20), 0.5);
+
+        // A slow password check followed by fast work keeps the limit
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(simulateRequest(1L), response, (request, checked) -> {
+            sleep(40);
+            authenticated((admitted, admittedResponse) -> { }).doFilter(request, checked);
+        });
+        assertEquals(200, response.getStatus());
+        assertEquals(4, filter.getLimit("/api/loans/simulate"));
+
+        // So does slow work that ends in a client error, or a request that never authenticates
+        assertEquals(400, simulate(filter, 1L, (request, rejected) -> {
+            sleep(40);
+            ((MockHttpServletResponse) rejected).setStatus(400);
+        }));
+        MockHttpServletResponse unauthorized = new MockHttpServletResponse();
+        filter.doFilter(simulateRequest(1L), unauthorized, (request, rejected) -> {
+            sleep(40);
+            ((MockHttpServletResponse) rejected).setStatus(401);
+        });
+        assertEquals(4, filter.getLimit("/api/loans/simulate"));
+
+        // Slow work after authentication shrinks it
+        assertEquals(200, simulate(filter, 1L, (request, slow) -> sleep(40)));
+        assertEquals(2, filter.getLimit("/api/loans/simulate"));
+    }
+
+    private static AdmissionControlFilter filter(int burst, int concurrencyLimit) {
+        return new AdmissionControlFilter(Set.of("/api/loans/simulate"), 0.001, burst,
+                concurrencyLimit, 1, concurrencyLimit, Duration.ofSeconds(10), 0.9);
+    }
+
+    private static int simulate(AdmissionControlFilter filter, long customerId, FilterChain chain) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(simulateRequest(customerId), response, authenticated(chain));
+        return response.getStatus();
+    }
+
+    // Stands in for the security filter chain: authenticates the request as admin, then runs the second stage
+    private static FilterChain authenticated(FilterChain chain) {
+        return (ServletRequest request, ServletResponse response) -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+            try {
+                new AuthenticatedAdmissionFilter().doFilter(request, response, chain);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static HttpServletRequest simulateRequest(long customerId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/loans/simulate");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8)));
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(("{\"customerId\": " + customerId + ", \"amount\": 1000.0, \"interestRate\": 0.2, \"installments\": 12}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
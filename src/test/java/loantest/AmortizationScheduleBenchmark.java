@@ -0,0 +1,42 @@
+package loantest;
+
+import com.app.schedule.ScheduleType;
+
+/**
+ * Measures how many schedules per second each plan generates on a single thread.
+ * Not a test, run it after mvn test-compile with: java -cp target/classes:target/test-classes loantest.AmortizationScheduleBenchmark
+ */
+public class AmortizationScheduleBenchmark {
+
+    private static final int[] TENORS = {6, 9, 12, 24};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int SCHEDULES_PER_ROUND = 5_000_000;
+
+    public static void main(String[] args) {
+        double[] amounts = new double[24];
+        for (ScheduleType type : ScheduleType.values()) {
+            double sink = 0;
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                sink += run(type, amounts);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                sink += run(type, amounts);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-17s %,.0f schedules/sec (checksum %.1f)%n",
+                    type, ROUNDS * (double) SCHEDULES_PER_ROUND / seconds, sink);
+        }
+    }
+
+    private static double run(ScheduleType type, double[] amounts) {
+        double sink = 0;
+        for (int i = 0; i < SCHEDULES_PER_ROUND; i++) {
+            double principal = 1000.0 + (i & 1023);
+            double interestRate = 0.1 + (i & 3) * 0.1;
+            sink += type.getSchedule().generate(principal, interestRate, TENORS[i & 3], amounts);
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,48 @@
+package loantest;
+
+import com.app.schedule.ScheduleType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmortizationScheduleTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    void testFlatScheduleSplitsTotalEqually() {
+        double[] amounts = new double[6];
+        double total = ScheduleType.FLAT.getSchedule().generate(1000.0, 0.2, 6, amounts);
+
+        assertEquals(1200.0, total, DELTA);
+        for (double amount : amounts) {
+            assertEquals(200.0, amount, DELTA);
+        }
+    }
+
+    @Test
+    void testAnnuityScheduleRepaysPrincipalAtPeriodRate() {
+        double[] amounts = new double[12];
+        double total = ScheduleType.ANNUITY.getSchedule().generate(1200.0, 0.12, 12, amounts);
+
+        // Discounting the equal installments at 1% per period gives back the principal
+        double presentValue = 0;
+        for (int i = 0; i < 12; i++) {
+            assertEquals(amounts[0], amounts[i], DELTA);
+            presentValue += amounts[i] / Math.pow(1.01, i + 1);
+        }
+        assertEquals(1200.0, presentValue, DELTA);
+        assertEquals(amounts[0] * 12, total, DELTA);
+        assertTrue(total < 1200.0 * 1.12);
+    }
+
+    @Test
+    void testDecliningBalanceScheduleChargesInterestOnOutstanding() {
+        double[] amounts = new double[4];
+        double total = ScheduleType.DECLINING_BALANCE.getSchedule().generate(1000.0, 0.4, 4, amounts);
+
+        // 250 principal each month plus 10% of the outstanding balance
+        assertArrayEquals(new double[]{350.0, 325.0, 300.0, 275.0}, amounts, DELTA);
+        assertEquals(1250.0, total, DELTA);
+    }
+}
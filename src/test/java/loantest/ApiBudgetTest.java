@@ -0,0 +1,195 @@
+package loantest;
+
+import com.app.MainApplication;
+import com.app.model.Customer;
+import com.app.model.Loan;
+import com.app.repository.CustomerRepository;
+import com.app.repository.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Guards the hot paths against regressions such as N+1 queries: every API call has to run exactly the expected
+ * number of SQL statements and may allocate at most its budget on the request thread. The allocation budget
+ * covers what a call allocates beyond an authenticated request that does no work, the BCrypt check and the
+ * servlet, security and MVC machinery allocate the same for every request and would hide a regression. Each
+ * budget is the measured allocation plus about 20%. When a change legitimately alters a budget, update the
+ * number here together with the change.
+ */
+@SpringBootTest(classes = MainApplication.class, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        // Budgets are measured without the SQL and Hibernate debug logging of the default configuration
+        "logging.level.org.hibernate=warn",
+        "logging.level.org.springframework.jdbc.core=warn",
+        "loansim.admission.enabled=false"
+})
+@AutoConfigureMockMvc
+class ApiBudgetTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiBudgetTest.class);
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int RUNS = 5;
+    // Authenticated and dispatched like the API calls, but without queries and with an empty response
+    private static final RequestSupplier BASELINE = () -> get("/api/admin/slow-requests").param("limit", "0");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customer = new Customer();
+        customer.setName("Fatih");
+        customer.setSurname("Terim");
+        customer.setCreditLimit(1_000_000.0);
+        customer.setUsedCreditLimit(0.0);
+        customer = customerRepository.save(customer);
+    }
+
+    @Test
+    void testCreateLoanBudget() throws Exception {
+        assertBudget("createLoan", () -> post("/api/loans/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\": " + customer.getId() + ", \"amount\": 1000.0, \"interestRate\": 0.2, \"installments\": 12}"),
+                // customer select, customer update, loan insert, 12 installment inserts
+                15, 180_000);
+    }
+
+    @Test
+    void testSimulateLoanBudget() throws Exception {
+        assertBudget("simulateLoan", () -> post("/api/loans/simulate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\": " + customer.getId() + ", \"amount\": 1000.0, \"interestRate\": 0.2, \"installments\": 12}"),
+                // customer select only
+                1, 37_000);
+    }
+
+    @Test
+    void testListLoansBudget() throws Exception {
+        createLoan();
+        createLoan();
+
+        assertBudget("listLoans", () -> get("/api/loans/list").param("customerId", String.valueOf(customer.getId())),
+                // customer select, loans select, no query per loan
+                2, 50_000);
+    }
+
+    @Test
+    void testListLoansNotModifiedBudget() throws Exception {
+        createLoan();
+        String eTag = mockMvc.perform(get("/api/loans/list").param("customerId", String.valueOf(customer.getId()))
+                .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertBudget("listLoans with matching ETag", () -> get("/api/loans/list")
+                .param("customerId", String.valueOf(customer.getId()))
+                .header(HttpHeaders.IF_NONE_MATCH, eTag),
+                // no more than the baseline request
+                0, 0);
+    }
+
+    @Test
+    void testListInstallmentsBudget() throws Exception {
+        Loan loan = createLoan();
+
+        assertBudget("listInstallments", () -> get("/api/loans/installments").param("loanId", String.valueOf(loan.getId())),
+                // loan with customer select, installments select, no query per installment
+                2, 95_000);
+    }
+
+    @Test
+    void testPayLoanBudget() throws Exception {
+        Loan loan = createLoan();
+
+        assertBudget("payLoan", () -> post("/api/loans/pay")
+                .param("loanId", String.valueOf(loan.getId()))
+                .param("amount", "100.0"),
+                // loan with customer select, installments select, one installment update
+                3, 117_000);
+    }
+
+    private Loan createLoan() throws Exception {
+        mockMvc.perform(post("/api/loans/create")
+                .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\": " + customer.getId() + ", \"amount\": 1000.0, \"interestRate\": 0.2, \"installments\": 12}"));
+        return loanRepository.findByCustomerId(customer.getId()).get(0);
+    }
+
+    /**
+     * Runs the call and the baseline request once to warm up, then RUNS times each, measured. The requests run
+     * on the test thread under MockMvc, so the thread's allocation counter covers the whole request. The least
+     * each allocated is compared, which leaves out one-off allocations such as cache fills.
+     */
+    private void assertBudget(String call, RequestSupplier request, long statements, long allocatedBytes) throws Exception {
+        perform(request);
+        perform(BASELINE);
+
+        long allocated = Long.MAX_VALUE;
+        long baseline = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long allocatedBefore = allocatedBytes();
+            perform(BASELINE);
+            baseline = Math.min(baseline, allocatedBytes() - allocatedBefore);
+
+            statistics.clear();
+            allocatedBefore = allocatedBytes();
+            MvcResult result = perform(request);
+            allocated = Math.min(allocated, allocatedBytes() - allocatedBefore);
+            long executed = statistics.getPrepareStatementCount();
+
+            assertTrue(result.getResponse().getStatus() < 400, call + " failed with " + result.getResponse().getStatus());
+            assertEquals(statements, executed, call + " SQL statement count");
+        }
+
+        long overBaseline = allocated - baseline;
+        log.info("{} ran {} SQL statement(s) and allocated {} bytes, {} bytes over the baseline", call, statements, allocated, overBaseline);
+        assertTrue(overBaseline <= allocatedBytes, call + " allocated " + overBaseline + " bytes over the baseline, budget is " + allocatedBytes);
+    }
+
+    private MvcResult perform(RequestSupplier request) throws Exception {
+        return mockMvc.perform(request.get().header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)).andReturn();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface RequestSupplier {
+        org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder get();
+    }
+}
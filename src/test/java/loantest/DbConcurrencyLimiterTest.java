@@ -0,0 +1,71 @@
+package loantest;
+
+import com.app.config.DbConcurrencyLimiter;
+import com.app.sharding.ShardContext;
+import com.app.sharding.ShardRouter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DbConcurrencyLimiterTest {
+
+    private final DbConcurrencyLimiter limiter = new DbConcurrencyLimiter(
+            new ShardRouter(true, List.of("jdbc:h2:mem:shard0", "jdbc:h2:mem:shard1")), 1, Duration.ofMillis(10));
+
+    @AfterEach
+    void tearDown() {
+        ShardContext.set(null);
+    }
+
+    @Test
+    void testFullShardIsRejectedWithServiceUnavailable() throws Throwable {
+        ShardContext.set(0);
+        ProceedingJoinPoint nested = joinPoint();
+        when(nested.proceed()).thenReturn("nested");
+        ProceedingJoinPoint outer = joinPoint();
+        // While the only permit of shard 0 is held, a second call on shard 0 times out
+        when(outer.proceed()).thenAnswer(invocation -> limiter.limit(nested));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> limiter.limit(outer));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        verify(nested, never()).proceed();
+        assertEquals(1, limiter.availablePermits(0));
+    }
+
+    @Test
+    void testShardsHaveTheirOwnPermits() throws Throwable {
+        ShardContext.set(0);
+        ProceedingJoinPoint nested = joinPoint();
+        when(nested.proceed()).thenReturn("nested");
+        ProceedingJoinPoint outer = joinPoint();
+        when(outer.proceed()).thenAnswer(invocation -> {
+            ShardContext.set(1);
+            try {
+                return limiter.limit(nested);
+            } finally {
+                ShardContext.set(0);
+            }
+        });
+
+        assertEquals("nested", limiter.limit(outer));
+        assertEquals(1, limiter.availablePermits(0));
+        assertEquals(1, limiter.availablePermits(1));
+    }
+
+    private static ProceedingJoinPoint joinPoint() {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn("payLoan");
+        when(joinPoint.getSignature()).thenReturn(signature);
+        return joinPoint;
+    }
+}
@@ -0,0 +1,91 @@
+package loantest;
+
+import com.app.model.Customer;
+import com.app.rules.EligibilityPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EligibilityPolicyTest {
+
+    private Properties properties;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new Properties();
+        properties.setProperty("rules.order", "credit,tenor,rate,exposure");
+        properties.setProperty("tenor.allowed", "3,6");
+        properties.setProperty("rate.min", "0.1");
+        properties.setProperty("rate.max", "0.5");
+        properties.setProperty("rate.segment.PREMIUM.min", "0.05");
+        properties.setProperty("rate.segment.PREMIUM.max", "0.2");
+        properties.setProperty("exposure.max", "3000.0");
+
+        customer = new Customer();
+        customer.setCreditLimit(10000.0);
+        customer.setUsedCreditLimit(0.0);
+    }
+
+    @Test
+    void testConfiguredTenorsAndExposure() {
+        EligibilityPolicy policy = EligibilityPolicy.compile(properties);
+
+        policy.evaluate(customer, 2000.0, 0.2, 3, flatTotal(2000.0, 0.2));
+
+        RuntimeException tenor = assertThrows(RuntimeException.class, () -> policy.evaluate(customer, 2000.0, 0.2, 12, flatTotal(2000.0, 0.2)));
+        assertEquals("Invalid installment number. Allowed values are only 3 or 6.", tenor.getMessage());
+
+        RuntimeException exposure = assertThrows(RuntimeException.class, () -> policy.evaluate(customer, 2900.0, 0.2, 6, flatTotal(2900.0, 0.2)));
+        assertEquals("Loan exceeds the maximum exposure of 3000.0.", exposure.getMessage());
+    }
+
+    @Test
+    void testSegmentRateBand() {
+        EligibilityPolicy policy = EligibilityPolicy.compile(properties);
+        customer.setSegment("PREMIUM");
+
+        policy.evaluate(customer, 1000.0, 0.05, 6, flatTotal(1000.0, 0.05));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> policy.evaluate(customer, 1000.0, 0.3, 6, flatTotal(1000.0, 0.3)));
+        assertEquals("Invalid interest rate as it must be between 0.05-0.2.", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCountersStopAtFirstRejectingRule() {
+        EligibilityPolicy policy = EligibilityPolicy.compile(properties);
+
+        policy.evaluate(customer, 1000.0, 0.2, 6, flatTotal(1000.0, 0.2));
+        assertThrows(RuntimeException.class, () -> policy.evaluate(customer, 1000.0, 0.2, 5, flatTotal(1000.0, 0.2)));
+
+        Map<String, Map<String, Long>> rules = (Map<String, Map<String, Long>>) policy.getStatistics().get("rules");
+        assertEquals(2L, rules.get("tenor").get("evaluated"));
+        assertEquals(1L, rules.get("tenor").get("rejected"));
+        assertEquals(1L, rules.get("rate").get("evaluated"));
+        assertEquals(0L, rules.get("rate").get("rejected"));
+    }
+
+    @Test
+    void testUnknownRuleIsRejected() {
+        properties.setProperty("rules.order", "credit,unknown");
+
+        assertThrows(IllegalArgumentException.class, () -> EligibilityPolicy.compile(properties));
+    }
+
+    @Test
+    void testSegmentBandWithoutMinIsRejected() {
+        properties.setProperty("rate.segment.SME.max", "0.3");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> EligibilityPolicy.compile(properties));
+        assertEquals("Missing eligibility policy property: rate.segment.SME.min", exception.getMessage());
+    }
+
+    private static double flatTotal(double amount, double interestRate) {
+        return amount * (1 + interestRate);
+    }
+}
@@ -0,0 +1,71 @@
+package loantest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a fixed number of GET requests in flight against a running application for a given time and prints
+ * throughput, latency percentiles and the status codes seen, to compare platform and virtual thread modes.
+ * Not a test, run it after mvn test-compile with:
+ * java -cp target/test-classes loantest.LoadBenchmark "http://localhost:8080/api/loans/list?customerId=1" 1000 60
+ */
+public class LoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int concurrency = Integer.parseInt(args[1]);
+        long durationNanos = Duration.ofSeconds(Long.parseLong(args[2])).toNanos();
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", authorization).timeout(Duration.ofSeconds(60)).build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[1 << 22];
+        AtomicInteger completed = new AtomicInteger();
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                String status = failure == null ? String.valueOf(response.statusCode()) : failure.getClass().getSimpleName();
+                statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                int index = completed.getAndIncrement();
+                if (index < latencies.length) {
+                    latencies[index] = System.nanoTime() - sent;
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int count = Math.min(completed.get(), latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%d clients, %.0f s: %,d requests, %,.1f req/s, p50 %.0f ms, p99 %.0f ms, max %.0f ms, statuses %s%n",
+                concurrency, seconds, count, count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0), new TreeMap<>(statuses));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+}
@@ -0,0 +1,140 @@
+package loantest;
+
+import com.app.MainApplication;
+import com.app.model.Customer;
+import com.app.model.Loan;
+import com.app.repository.CustomerRepository;
+import com.app.repository.LoanInstallmentRepository;
+import com.app.repository.LoanRepository;
+import com.app.schedule.ScheduleType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = MainApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "loansim.admission.enabled=false")
+@AutoConfigureMockMvc
+class LoanControllerTest {
+
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Fatih");
+        customer.setSurname("Terim");
+        customer.setCreditLimit(100_000.0);
+        customer.setUsedCreditLimit(0.0);
+        customer = customerRepository.save(customer);
+    }
+
+    @Test
+    void testCreateLoanBindsJsonBody() throws Exception {
+        mockMvc.perform(post("/api/loans/create")
+                        .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": " + customer.getId() + ", \"amount\": 1000.0, \"interestRate\": 0.2, \"installments\": 6, \"scheduleType\": \"ANNUITY\"}"))
+                .andExpect(status().isCreated());
+
+        List<Loan> loans = loanRepository.findByCustomerId(customer.getId());
+        assertEquals(1, loans.size());
+        assertEquals(1000.0, loans.get(0).getLoanAmount());
+        assertEquals(6, loans.get(0).getNumberOfInstallments());
+        assertEquals(ScheduleType.ANNUITY, loans.get(0).getScheduleType());
+        assertEquals(6, loanInstallmentRepository.findByLoanId(loans.get(0).getId()).size());
+    }
+
+    @Test
+    void testInstallmentsETagChangesWithCustomer() throws Exception {
+        createLoan(1000.0);
+        Long loanId = loanRepository.findByCustomerId(customer.getId()).get(0).getId();
+
+        String etag = mockMvc.perform(get("/api/loans/installments")
+                        .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                        .param("loanId", loanId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/loans/installments")
+                        .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("loanId", loanId.toString()))
+                .andExpect(status().isNotModified());
+
+        // A second loan changes the customer's used credit limit, which the installments embed
+        createLoan(2000.0);
+        mockMvc.perform(get("/api/loans/installments")
+                        .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("loanId", loanId.toString()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testListLoansIsCompressedWithItsETag() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createLoan(1000.0);
+        }
+
+        // Compression is done by Tomcat, so this goes through the embedded server rather than MockMvc
+        HttpResponse<byte[]> response = listLoansOverHttp();
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue(HttpHeaders.ETAG).isPresent());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+    }
+
+    private HttpResponse<byte[]> listLoansOverHttp() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/loans/list?customerId=" + customer.getId()))
+                .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private void createLoan(double amount) throws Exception {
+        mockMvc.perform(post("/api/loans/create")
+                        .header(HttpHeaders.AUTHORIZATION, AUTHORIZATION)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": " + customer.getId() + ", \"amount\": " + amount + ", \"interestRate\": 0.2, \"installments\": 6, \"scheduleType\": \"ANNUITY\"}"))
+                .andExpect(status().isCreated());
+    }
+}
@@ -1,20 +1,32 @@
 package loantest;
 
+import com.app.archive.InstallmentCodec;
+import com.app.model.ArchivedLoan;
 import com.app.model.Customer;
+import com.app.model.ImportedPayment;
 import com.app.model.Loan;
 import com.app.model.LoanInstallment;
+import com.app.model.LoanQuote;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+import com.app.repository.ArchivedLoanRepository;
 import com.app.repository.CustomerRepository;
+import com.app.repository.ImportedPaymentRepository;
 import com.app.repository.LoanInstallmentRepository;
 import com.app.repository.LoanRepository;
+import com.app.rules.EligibilityEngine;
+import com.app.schedule.ScheduleType;
+import com.app.service.LoanQuoteCalculator;
 import com.app.service.LoanService;
+import com.app.service.ResourceVersions;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -36,6 +48,21 @@ class LoanServiceTest {
     @Mock
     private LoanInstallmentRepository loanInstallmentRepository;
 
+    @Mock
+    private ImportedPaymentRepository importedPaymentRepository;
+
+    @Mock
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Spy
+    private EligibilityEngine eligibilityEngine = new EligibilityEngine(new DefaultResourceLoader(), EligibilityEngine.DEFAULT_LOCATION);
+
+    @Spy
+    private LoanQuoteCalculator loanQuoteCalculator = new LoanQuoteCalculator(100);
+
+    @Spy
+    private ResourceVersions resourceVersions = new ResourceVersions();
+
     @InjectMocks
     private LoanService loanService;
 
@@ -115,6 +142,30 @@ class LoanServiceTest {
         assertEquals("Customer does not have enough credit for this loan.", exception.getMessage());
     }
 
+    @Test
+    void testCreateAnnuityLoanAtCreditLimit() {
+        log.info("Testing annuity loan creation with exactly enough credit scenario. ");
+        // The annuity total is below the flat amount * (1 + interestRate) of 1200.0, only the annuity total is checked
+        double annuityTotal = ScheduleType.ANNUITY.getSchedule().totalAmount(1000.0, 0.2, 12);
+        assertTrue(annuityTotal < 1200.0);
+        customer.setCreditLimit(annuityTotal);
+        customer.setUsedCreditLimit(0.0);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+        when(loanRepository.save(Mockito.any(Loan.class))).thenReturn(loan);
+
+        loanService.createLoan(1L, 1000.0, 0.2, 12, ScheduleType.ANNUITY);
+
+        // The customer is charged exactly the total the credit rule checked
+        assertEquals(annuityTotal, customer.getUsedCreditLimit());
+
+        customer.setCreditLimit(annuityTotal - 0.01);
+        customer.setUsedCreditLimit(0.0);
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            loanService.createLoan(1L, 1000.0, 0.2, 12, ScheduleType.ANNUITY);
+        });
+        assertEquals("Customer does not have enough credit for this loan.", exception.getMessage());
+    }
+
     @Test
     void testCreateLoanInvalidInstallments() {
         log.info("Testing invalid installment amount scenario. ");
@@ -141,6 +192,36 @@ class LoanServiceTest {
         assertEquals("Invalid interest rate as it must be between 0.1-0.5.", exception.getMessage());
     }
 
+    @Test
+    void testSimulateLoanDoesNotPersist() {
+        log.info("Testing loan simulation scenario. ");
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        LoanQuote quote = loanService.simulateLoan(1L, 1000.0, 0.2, 6, null);
+
+        assertEquals(ScheduleType.FLAT, quote.getScheduleType());
+        assertEquals(1200.0, quote.getTotalAmount(), 1e-9);
+        assertEquals(6, quote.getInstallments().size());
+        assertEquals(LocalDate.now().plusMonths(1).withDayOfMonth(1), quote.getInstallments().get(0).getDueDate());
+        assertEquals(2000.0, customer.getUsedCreditLimit());
+        // Identical quotes are served from the cache
+        assertSame(quote, loanService.simulateLoan(1L, 1000.0, 0.2, 6, ScheduleType.FLAT));
+        Mockito.verifyNoInteractions(loanRepository, loanInstallmentRepository);
+        Mockito.verify(customerRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void testSimulateLoanRunsEligibilityRules() {
+        log.info("Testing loan simulation with invalid installments scenario. ");
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            loanService.simulateLoan(1L, 1000.0, 0.2, 5, ScheduleType.ANNUITY);
+        });
+
+        assertEquals("Invalid installment number. Allowed values are only 6, 9, 12 or 24.", exception.getMessage());
+    }
+
     @Test
     void testListLoansSuccess() {
         log.info("Testing listing loans scenario. ");
@@ -154,6 +235,35 @@ class LoanServiceTest {
         assertEquals(loan, loans.get(0));
     }
 
+    @Test
+    void testListInstallmentsOfArchivedLoan() {
+        log.info("Testing archived loan installments scenario. ");
+        installment.setId(7L);
+        installment.setPaid(true);
+        installment.setPaidAmount(199.5);
+        installment.setPaymentDate(LocalDate.now());
+        ArchivedLoan archivedLoan = new ArchivedLoan();
+        archivedLoan.setId(1L);
+        archivedLoan.setCustomerId(1L);
+        archivedLoan.setLoanAmount(1000.0);
+        archivedLoan.setInstallments(InstallmentCodec.encode(Arrays.asList(installment)));
+        when(loanRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivedLoanRepository.findById(1L)).thenReturn(Optional.of(archivedLoan));
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        // Archived loans are only visible when asked for
+        assertThrows(RuntimeException.class, () -> loanService.listInstallments(1L));
+        List<LoanInstallment> installments = loanService.listInstallments(1L, true);
+
+        assertEquals(1, installments.size());
+        assertEquals(7L, installments.get(0).getId());
+        assertEquals(199.5, installments.get(0).getPaidAmount());
+        assertEquals(installment.getDueDate(), installments.get(0).getDueDate());
+        assertEquals(LocalDate.now(), installments.get(0).getPaymentDate());
+        assertTrue(installments.get(0).getLoan().getIsPaid());
+        assertEquals(customer, installments.get(0).getLoan().getCustomer());
+    }
+
     @Test
     void testPayLoanSuccess() {
         log.info("Testing loan payment scenario. ");
@@ -167,6 +277,42 @@ class LoanServiceTest {
         assertEquals("Successfully paid 1 installments. Total amount spent: 200.0", result);
     }
 
+    @Test
+    void testPayLoanChangesETags() {
+        log.info("Testing ETag change after payment scenario. ");
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(loan));
+        when(loanInstallmentRepository.findByLoan(loan)).thenReturn(Arrays.asList(installment));
+        String loanETag = resourceVersions.loanETag(1L);
+        String customerETag = resourceVersions.customerETag(1L);
+
+        loanService.payLoan(1L, 100.0);
+        assertEquals(loanETag, resourceVersions.loanETag(1L));
+
+        loanService.payLoan(1L, 200.0);
+        assertNotEquals(loanETag, resourceVersions.loanETag(1L));
+        assertNotEquals(customerETag, resourceVersions.customerETag(1L));
+    }
+
+    @Test
+    void testPayLoanBatchSkipsAlreadyImportedLines() {
+        log.info("Testing resumed bulk payment scenario. ");
+        ImportedPayment recorded = new ImportedPayment();
+        recorded.setLineNumber(1L);
+        recorded.setSucceeded(true);
+        recorded.setMessage("Successfully paid 1 installments. Total amount spent: 200.0");
+        when(importedPaymentRepository.findByImportIdAndLoanId("payments.csv", 1L)).thenReturn(Arrays.asList(recorded));
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(loan));
+        when(loanInstallmentRepository.findByLoan(loan)).thenReturn(Arrays.asList(installment));
+
+        List<ImportedPayment> results = loanService.payLoanBatch(1L, "payments.csv", new long[]{1, 2}, new double[]{200.0, 50.0}, 2);
+
+        assertSame(recorded, results.get(0));
+        assertFalse(results.get(1).getSucceeded());
+        assertEquals("Insufficient funds to pay any installment.", results.get(1).getMessage());
+        assertFalse(installment.getPaid());
+        Mockito.verify(importedPaymentRepository).saveAll(Arrays.asList(results.get(1)));
+    }
+
     @Test
     void testPayLoanInsufficientFunds() {
         log.info("Testing insufficient funds scenario. ");
@@ -0,0 +1,157 @@
+package loantest;
+
+import com.app.importer.PaymentFileFormat;
+import com.app.importer.PaymentImportService;
+import com.app.model.ImportedPayment;
+import com.app.service.LoanService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+class PaymentImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final LoanService loanService = Mockito.mock(LoanService.class);
+
+    @Test
+    void testCsvImportWritesReportInFileOrder() throws IOException {
+        Files.write(directory.resolve("payments.csv"),
+                "loanId,amount\n1,200.00\n2,abc\n\n1,150.5\r\n3,100".getBytes(StandardCharsets.UTF_8));
+        when(loanService.payLoanBatch(anyLong(), startsWith("payments.csv@"), any(), any(), anyInt())).thenAnswer(invocation -> succeeded(invocation.getArgument(4)));
+
+        Map<String, Object> summary = service(10).importPayments("payments.csv", PaymentFileFormat.CSV);
+
+        assertEquals(4L, summary.get("lines"));
+        assertEquals(3L, summary.get("succeeded"));
+        assertEquals(1L, summary.get("failed"));
+        // Both payments of loan 1 fall into one chunk and are applied together, in file order
+        Mockito.verify(loanService).payLoanBatch(eq(1L), eq((String) summary.get("importId")), eq(new long[]{2, 5}), eq(new double[]{200.0, 150.5}), eq(2));
+        List<String> report = Files.readAllLines(directory.resolve("payments.csv.report"));
+        assertEquals(5, report.size());
+        assertEquals("2,1,200.0,OK,\"paid\"", report.get(1));
+        assertEquals("3,,,FAILED,\"Invalid amount\"", report.get(2));
+        assertEquals("5,1,150.5,OK,\"paid\"", report.get(3));
+        assertEquals("6,3,100.0,OK,\"paid\"", report.get(4));
+    }
+
+    @Test
+    void testFixedWidthImport() throws IOException {
+        Files.write(directory.resolve("payments.txt"),
+                String.format("%19d%15s%n%19d%15s%n", 7, "500.00", 8, "75.25").getBytes(StandardCharsets.UTF_8));
+        when(loanService.payLoanBatch(anyLong(), any(), any(), any(), anyInt())).thenAnswer(invocation -> succeeded(invocation.getArgument(4)));
+
+        Map<String, Object> summary = service(10).importPayments("payments.txt", PaymentFileFormat.FIXED_WIDTH);
+
+        assertEquals(2L, summary.get("succeeded"));
+        Mockito.verify(loanService).payLoanBatch(eq(8L), any(), eq(new long[]{2}), eq(new double[]{75.25}), eq(1));
+    }
+
+    @Test
+    void testImportResumesAfterFailedChunk() throws IOException {
+        Files.write(directory.resolve("payments.csv"), "1,10\n2,20\n3,30\n4,40\n".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger calls = new AtomicInteger();
+        when(loanService.payLoanBatch(anyLong(), any(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            // The DB goes away while the second chunk is applied
+            if (invocation.<Long>getArgument(0) == 3L && calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("Connection lost");
+            }
+            return succeeded(invocation.getArgument(4));
+        });
+        PaymentImportService service = service(2);
+
+        assertThrows(RuntimeException.class, () -> service.importPayments("payments.csv", PaymentFileFormat.CSV));
+        Map<String, Object> summary = service.importPayments("payments.csv", PaymentFileFormat.CSV);
+
+        assertEquals(4L, summary.get("succeeded"));
+        // The checkpointed first chunk is not applied again, the interrupted one is and payLoanBatch skips its applied lines
+        Mockito.verify(loanService, Mockito.times(1)).payLoanBatch(eq(1L), any(), any(), any(), anyInt());
+        Mockito.verify(loanService, Mockito.times(2)).payLoanBatch(eq(4L), any(), any(), any(), anyInt());
+        assertEquals(5, Files.readAllLines(directory.resolve("payments.csv.report")).size());
+
+        // A completed import is not applied again
+        service.importPayments("payments.csv", PaymentFileFormat.CSV);
+        Mockito.verify(loanService, Mockito.times(2)).payLoanBatch(eq(4L), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testRejectedLoanIdFailsItsLinesOnly() throws IOException {
+        Files.write(directory.resolve("payments.csv"), "1,100\n1099511627777,100\n2,50\n".getBytes(StandardCharsets.UTF_8));
+        when(loanService.payLoanBatch(anyLong(), any(), any(), any(), anyInt())).thenAnswer(invocation -> succeeded(invocation.getArgument(4)));
+        // An ID beyond the last shard, as ShardRoutingAspect rejects it
+        when(loanService.payLoanBatch(eq(1099511627777L), any(), any(), any(), anyInt()))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "No customer or loan exists with ID 1099511627777"));
+        PaymentImportService service = service(10);
+
+        Map<String, Object> summary = service.importPayments("payments.csv", PaymentFileFormat.CSV);
+
+        assertEquals(2L, summary.get("succeeded"));
+        assertEquals(1L, summary.get("failed"));
+        List<String> report = Files.readAllLines(directory.resolve("payments.csv.report"));
+        assertEquals("2,1099511627777,100.0,FAILED,\"No customer or loan exists with ID 1099511627777\"", report.get(2));
+        assertEquals("3,2,50.0,OK,\"paid\"", report.get(3));
+        // The import completed, calling it again applies nothing
+        service.importPayments("payments.csv", PaymentFileFormat.CSV);
+        Mockito.verify(loanService, Mockito.times(1)).payLoanBatch(eq(2L), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testChangedFileUnderAnImportedNameIsRejected() throws IOException {
+        Files.write(directory.resolve("payments.csv"), "1,100\n".getBytes(StandardCharsets.UTF_8));
+        when(loanService.payLoanBatch(anyLong(), any(), any(), any(), anyInt())).thenAnswer(invocation -> succeeded(invocation.getArgument(4)));
+        PaymentImportService service = service(10);
+        service.importPayments("payments.csv", PaymentFileFormat.CSV);
+
+        // A re-issued file under the same name
+        Files.write(directory.resolve("payments.csv"), "1,100\n2,50\n".getBytes(StandardCharsets.UTF_8));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.importPayments("payments.csv", PaymentFileFormat.CSV));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        Mockito.verify(loanService, Mockito.never()).payLoanBatch(eq(2L), any(), any(), any(), anyInt());
+        // Once the old checkpoint is removed, the new file is an import of its own and all of its lines are applied
+        Files.delete(directory.resolve("payments.csv.checkpoint"));
+        Map<String, Object> summary = service.importPayments("payments.csv", PaymentFileFormat.CSV);
+        assertEquals(2L, summary.get("succeeded"));
+        Mockito.verify(loanService, Mockito.times(2)).payLoanBatch(eq(1L), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testFileOutsideImportDirectoryIsRejected() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> service(10).importPayments("../payments.csv", PaymentFileFormat.CSV));
+
+        assertEquals("Payment file not found", exception.getMessage());
+    }
+
+    private PaymentImportService service(int chunkSize) {
+        return new PaymentImportService(loanService, directory.toString(), chunkSize, 2);
+    }
+
+    private static List<ImportedPayment> succeeded(int count) {
+        List<ImportedPayment> payments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ImportedPayment payment = new ImportedPayment();
+            payment.setSucceeded(true);
+            payment.setMessage("paid");
+            payments.add(payment);
+        }
+        return payments;
+    }
+}
@@ -0,0 +1,101 @@
+package loantest;
+
+import com.app.tracing.Phase;
+import com.app.tracing.RequestTrace;
+import com.app.tracing.SlowRequestRecorder;
+import com.app.tracing.SlowRequestTrace;
+import com.app.tracing.TracedPhase;
+import com.app.tracing.TracingSessionEventListener;
+import com.app.tracing.TracingStatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTracingTest {
+
+    private final TracingStatementInspector inspector = new TracingStatementInspector();
+    private final TracingSessionEventListener listener = new TracingSessionEventListener();
+
+    @AfterEach
+    void tearDown() {
+        RequestTrace current = RequestTrace.current();
+        if (current != null) {
+            current.end();
+        }
+    }
+
+    @Test
+    void testSlowRequestKeepsPhasesAndStatements() {
+        SlowRequestRecorder recorder = new SlowRequestRecorder(Duration.ZERO, 10);
+        RequestTrace trace = RequestTrace.begin("POST", "/api/loans/pay");
+
+        try (TracedPhase ignored = RequestTrace.phase(Phase.LOAN_LOOKUP)) {
+            executeStatement("select * from loan where id=?");
+            executeStatement("select * from loan_installment where loan_id=?");
+        }
+        // A phase repeated within one request is summed up
+        try (TracedPhase ignored = RequestTrace.phase(Phase.PAYMENT_LOOP)) {
+            executeStatement("update loan_installment set paid=? where id=?");
+        }
+        try (TracedPhase ignored = RequestTrace.phase(Phase.PAYMENT_LOOP)) {
+            listener.flushStart();
+            listener.flushEnd(1, 0);
+        }
+        trace.end();
+
+        assertNull(RequestTrace.current());
+        assertTrue(recorder.record(trace, 200));
+        SlowRequestTrace slowTrace = recorder.getRecentTraces().get(0);
+        assertEquals("/api/loans/pay", slowTrace.getUri());
+        assertEquals(200, slowTrace.getStatus());
+        assertEquals(List.of(Phase.LOAN_LOOKUP.getLabel(), Phase.PAYMENT_LOOP.getLabel()), List.copyOf(slowTrace.getPhases().keySet()));
+        assertEquals(3, slowTrace.getSqlStatements());
+        assertEquals("update loan_installment set paid=? where id=?", slowTrace.getStatements().get(2).getSql());
+        assertTrue(slowTrace.getTotalMillis() >= slowTrace.getSqlMillis());
+        assertTrue(slowTrace.getUnaccountedMillis() >= 0);
+    }
+
+    @Test
+    void testFastRequestIsNotRecorded() {
+        SlowRequestRecorder recorder = new SlowRequestRecorder(Duration.ofMinutes(1), 10);
+        RequestTrace trace = RequestTrace.begin("GET", "/api/loans/list");
+        executeStatement("select * from customer where id=?");
+        trace.end();
+
+        assertFalse(recorder.record(trace, 200));
+        assertTrue(recorder.getRecentTraces().isEmpty());
+    }
+
+    @Test
+    void testRecorderKeepsMostRecentTraces() {
+        SlowRequestRecorder recorder = new SlowRequestRecorder(Duration.ZERO, 2);
+        for (int i = 1; i <= 3; i++) {
+            RequestTrace trace = RequestTrace.begin("GET", "/api/loans/installments/" + i);
+            trace.end();
+            recorder.record(trace, 200);
+        }
+
+        List<SlowRequestTrace> traces = recorder.getRecentTraces();
+        assertEquals(2, traces.size());
+        assertEquals("/api/loans/installments/3", traces.get(0).getUri());
+        assertEquals("/api/loans/installments/2", traces.get(1).getUri());
+    }
+
+    @Test
+    void testWorkOutsideARequestIsNotTraced() {
+        try (TracedPhase ignored = RequestTrace.phase(Phase.PAYMENT_LOOP)) {
+            executeStatement("update loan_installment set paid=? where id=?");
+        }
+        assertNull(RequestTrace.current());
+    }
+
+    private void executeStatement(String sql) {
+        inspector.inspect(sql);
+        listener.jdbcExecuteStatementStart();
+        listener.jdbcExecuteStatementEnd();
+    }
+}
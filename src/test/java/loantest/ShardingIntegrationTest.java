@@ -0,0 +1,147 @@
+package loantest;
+
+import com.app.MainApplication;
+import com.app.archive.LoanArchiveService;
+import com.app.importer.PaymentFileFormat;
+import com.app.importer.PaymentImportService;
+import com.app.model.ArchivedLoan;
+import com.app.model.Loan;
+import com.app.model.LoanInstallment;
+import com.app.repository.ArchivedLoanRepository;
+import com.app.service.LoanService;
+import com.app.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("sharded")
+class ShardingIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingIntegrationTest.class);
+    private static final String DIRECTORY = "./target/shards-" + System.nanoTime();
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PaymentImportService paymentImportService;
+
+    @Autowired
+    private LoanArchiveService loanArchiveService;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @DynamicPropertySource
+    static void shardUrls(DynamicPropertyRegistry registry) {
+        // Three fresh file-backed H2 databases per run
+        registry.add("loansim.import.directory", () -> DIRECTORY);
+        // Loans paid today are old enough to be archived
+        registry.add("loansim.archive.min-age-days", () -> "-1");
+        registry.add("loansim.sharding.urls",
+                () -> "jdbc:h2:file:" + DIRECTORY + "/shard0,jdbc:h2:file:" + DIRECTORY + "/shard1,jdbc:h2:file:" + DIRECTORY + "/shard2");
+    }
+
+    @Test
+    void testLoansAreCreatedAndFoundOnTheCustomersShard() {
+        log.info("Testing loan creation across shards scenario. ");
+        long customerOnShard1 = ShardRouter.firstId(1);
+        long customerOnShard2 = ShardRouter.firstId(2);
+        Map<String, Object> before = loanService.loanStatistics();
+
+        Loan first = loanService.createLoan(customerOnShard1, 1000.0, 0.2, 6);
+        Loan second = loanService.createLoan(customerOnShard2, 2000.0, 0.2, 12);
+
+        assertEquals(1, shardRouter.shardOf(first.getId()));
+        assertEquals(2, shardRouter.shardOf(second.getId()));
+        assertEquals(1, loanService.listLoans(customerOnShard1).size());
+
+        List<LoanInstallment> installments = loanService.listInstallments(second.getId());
+        assertEquals(12, installments.size());
+        assertEquals("Successfully paid 1 installments. Total amount spent: 200.0",
+                loanService.payLoan(first.getId(), 200.0));
+
+        Map<String, Object> statistics = loanService.loanStatistics();
+        assertEquals(2L, (Long) statistics.get("loans") - (Long) before.get("loans"));
+        assertEquals(3000.0, (Double) statistics.get("totalLoanAmount") - (Double) before.get("totalLoanAmount"), 1e-9);
+        assertEquals(3, ((List<?>) statistics.get("shards")).size());
+    }
+
+    @Test
+    void testIdOfAMissingShardIsNotFound() {
+        log.info("Testing an ID routed to a shard that does not exist scenario. ");
+        long loanOnShard5 = ShardRouter.firstId(5);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> loanService.listInstallments(loanOnShard5));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void testPaymentFileIsAppliedOnTheLoansShards() throws IOException {
+        log.info("Testing bulk payment import across shards scenario. ");
+        Loan loan = loanService.createLoan(ShardRouter.firstId(1) + 1, 600.0, 0.2, 6);
+        Files.write(Paths.get(DIRECTORY, "payments.csv"),
+                ("loanId,amount\n" + loan.getId() + ",120\n" + loan.getId() + ",240\n999,100\n").getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Object> summary = paymentImportService.importPayments("payments.csv", PaymentFileFormat.CSV);
+
+        assertEquals(2L, summary.get("succeeded"));
+        assertEquals(1L, summary.get("failed"));
+        assertEquals(3, loanService.listInstallments(loan.getId()).stream().filter(LoanInstallment::getPaid).count());
+    }
+
+    @Test
+    void testPaidLoansAreArchivedOnTheirShard() {
+        log.info("Testing archival of paid loans scenario. ");
+        long customerId = ShardRouter.firstId(2) + 1;
+        Loan loan = loanService.createLoan(customerId, 600.0, 0.2, 6);
+        loanService.payLoan(loan.getId(), 720.0);
+
+        assertTrue(loanArchiveService.archivePaidLoans() >= 1);
+
+        assertTrue(loanService.listLoans(customerId).stream().noneMatch(listed -> listed.getId().equals(loan.getId())));
+        assertTrue(loanService.listLoans(customerId, true).stream().anyMatch(listed -> listed.getId().equals(loan.getId())));
+        List<LoanInstallment> installments = loanService.listInstallments(loan.getId(), true);
+        assertEquals(6, installments.size());
+        assertTrue(installments.stream().allMatch(LoanInstallment::getPaid));
+    }
+
+    @Test
+    void testArchivingALoanTwiceFails() {
+        log.info("Testing a loan archived twice scenario. ");
+        long loanId = ShardRouter.firstId(0) + 1_000_000;
+        archivedLoanRepository.save(archivedLoan(loanId, 600.0));
+
+        assertThrows(DataIntegrityViolationException.class, () -> archivedLoanRepository.save(archivedLoan(loanId, 1.0)));
+        assertEquals(600.0, archivedLoanRepository.findById(loanId).orElseThrow().getLoanAmount());
+    }
+
+    private static ArchivedLoan archivedLoan(long id, double amount) {
+        ArchivedLoan archivedLoan = new ArchivedLoan();
+        archivedLoan.setId(id);
+        archivedLoan.setCustomerId(ShardRouter.firstId(0));
+        archivedLoan.setLoanAmount(amount);
+        return archivedLoan;
+    }
+}
@@ -0,0 +1,58 @@
+package loantest;
+
+import com.app.MainApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the application the way the java21 profile runs it. Skipped below Java 21, run it with a JDK 21 as
+ * JAVA_HOME: mvn test -Dtest=VirtualThreadsIntegrationTest
+ */
+@SpringBootTest(classes = MainApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "loansim.virtual-threads.enabled=true",
+        "loansim.db.concurrency-limit.enabled=true",
+        "loansim.admission.enabled=false"
+})
+@EnabledIf("virtualThreadsAvailable")
+class VirtualThreadsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Test
+    void testRequestsAreServedOnVirtualThreads() throws Exception {
+        Executor executor = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector().getProtocolHandler().getExecutor();
+        CompletableFuture<Thread> worker = CompletableFuture.supplyAsync(Thread::currentThread, executor);
+        // Thread.isVirtual is looked up reflectively, the tests are compiled for Java 11
+        assertEquals(true, Thread.class.getMethod("isVirtual").invoke(worker.get()));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/loans/list?customerId=1"))
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8)))
+                .build();
+        assertEquals(200, HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+}